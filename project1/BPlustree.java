@@ -5,35 +5,11 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-
-class Node implements Serializable{
-    // True for leaf nodes, False for internal nodes
-    boolean isLeaf; 
-
-    // The keys stored in this node
-    List<Float> keys; 
-
-    List<List<PhysicalAddress>> data_pointers; 
-
-    // Children nodes (for internal nodes)
-    List<Node> children; 
-
-    // Link to the next leaf node
-    Node next; 
-
-    // Constructor to initialize a node
-    public Node(boolean isLeaf) {
-        this.isLeaf = isLeaf;
-        this.keys = new ArrayList<>();
-        this.data_pointers = new ArrayList<>();
-        this.children = new ArrayList<>();
-        this.next = null;
-    }
-}
+import java.util.stream.IntStream;
 
 class BPlustree implements Serializable {
     // Root node of the tree
@@ -80,114 +56,155 @@ class BPlustree implements Serializable {
         return tree;
     }
 
-    public void bulk_loading(List<Map.Entry<Float, PhysicalAddress>> data){
-        
-        // Check for unique leaf key values
-        Set<Float> unique_leaf_values = new HashSet<>();
-        for (Map.Entry<Float, PhysicalAddress> entry : data) {
-            // System.out.println(entry.getKey());
-            unique_leaf_values.add(entry.getKey());
-        }
-
-        System.out.println("Unique leaf values: " + unique_leaf_values);
-
-        // Get the count of unique keys
-        int num_of_unique_leaf_keys = unique_leaf_values.size();
-        System.out.println("Number of unique leaf values: " + num_of_unique_leaf_keys);
-
-
-        // Create Leaf Nodes
-        int leaf_node_count = (int) Math.floor((double) num_of_unique_leaf_keys / this.n) + 1;
-        System.out.println("Number of leaf nodes: " + leaf_node_count);
-        int last_leaf_num_of_keys = num_of_unique_leaf_keys % this.n;
-        System.out.println("Number of keys in last node: " + last_leaf_num_of_keys);
-
+    // Bulk load from a stream of (key, address) pairs already sorted by key
+    // Leaves are filled and linked one after another as the sorted stream arrives. Only the
+    // sort is memory-bounded (ExternalSorter spills runs); the tree itself is built in memory,
+    // one Node per leaf plus a Float key and a PhysicalAddress per row, so it needs O(rows).
+    public void bulk_loading(ExternalSorter.MergeCursor cursor) throws IOException {
         ArrayList<Node> list_of_leafs = new ArrayList<Node>();
+        Node cur_leaf_node = new Node(true);
+        list_of_leafs.add(cur_leaf_node);
 
-        for (int leaf = 0; leaf < leaf_node_count; leaf++) {
-            list_of_leafs.add(new Node(true));
-        }
-
-        // Set NextLeafNode
-        for (int i = 0; i < leaf_node_count - 1; i++) {
-            list_of_leafs.get(i).next = list_of_leafs.get(i + 1);
-            // System.out.println(i + " next: " + list_of_leafs.get(i).next);
-        }
+        while (cursor.next()) {
+            float cur_key_value = cursor.key();
+            PhysicalAddress address = new PhysicalAddress(cursor.blockID(), cursor.index());
+            int key_count = cur_leaf_node.keys.size();
 
-        int key_position_within_node = 0, cur_leaf_index = 0;
-        float cur_key_value = 0;
-        Node cur_leaf_node = null; 
-        float previous_key_check = -99999; 
-        
-        for (Map.Entry<Float, PhysicalAddress> entry : data) {
-            cur_key_value = entry.getKey();
-            cur_leaf_node = list_of_leafs.get(cur_leaf_index);
-        
             // Case where current key value is same as previous key (i.e. Duplicates)
-            if (previous_key_check == cur_key_value){
-                // System.out.println("Entering duplicates");
-                // System.out.println("Duplicate: " + entry);
-                cur_leaf_node.data_pointers.get(key_position_within_node-1).add(entry.getValue()); // Add address to existing list
+            if (key_count > 0 && cur_leaf_node.keys.get(key_count - 1) == cur_key_value) {
+                cur_leaf_node.data_pointers.get(key_count - 1).add(address);
+                continue;
             }
 
-            // Case where last node may have too little keys 
-            // Stop second last node from filling to full 
-            // Let both nodes have n [number of keys that second last would have taken] + Number of keys last node would have taken 
-            // And divide the sum by 2 to split evenly 
-            else if (
-                cur_leaf_index == leaf_node_count - 2  // We are checking 2nd last node 
-                && last_leaf_num_of_keys < (this.n + 1) / 2
-                && key_position_within_node > (Math.ceil((this.n + last_leaf_num_of_keys) / 2))-1)
-            {
-                System.out.println("Enter last node condition");
-                System.out.println("Key position when entering last node: "+ key_position_within_node);
-                // Move to last leaf node 
-                cur_leaf_index ++ ; 
-                cur_leaf_node = list_of_leafs.get(cur_leaf_index);
-                // Start from first key position in last node
-                key_position_within_node = 0;
-                cur_leaf_node.keys.add(key_position_within_node, (float) cur_key_value);
-                cur_leaf_node.data_pointers.add(new ArrayList<PhysicalAddress>()); // Everytime new key --> new list of addresses
-                cur_leaf_node.data_pointers.get(key_position_within_node).add(entry.getValue()); // Append that the address to the list
-                key_position_within_node++; // Move to next insert position
-                previous_key_check = cur_key_value;
+            // Case where current node is full: link a fresh leaf and move on
+            if (key_count == this.n) {
+                Node next_leaf = new Node(true);
+                cur_leaf_node.next = next_leaf;
+                cur_leaf_node = next_leaf;
+                list_of_leafs.add(cur_leaf_node);
             }
-                
 
-            // Case where the current node not full
-            // Fill leaf information (key and data pointers )
-            else if (key_position_within_node<n){
-                cur_leaf_node.keys.add(key_position_within_node, (float) cur_key_value);
-                cur_leaf_node.data_pointers.add(new ArrayList<PhysicalAddress>()); // Everytime new key --> new list of addresses
-                cur_leaf_node.data_pointers.get(key_position_within_node).add(entry.getValue()); // Append that the address to the list
-                key_position_within_node++; // Move to next insert position
-                previous_key_check = cur_key_value;
+            cur_leaf_node.keys.add(cur_key_value);
+            cur_leaf_node.data_pointers.add(new ArrayList<PhysicalAddress>());
+            cur_leaf_node.data_pointers.get(cur_leaf_node.keys.size() - 1).add(address);
+        }
+
+        // Case where last node may have too little keys
+        // Let the last two nodes split their combined keys evenly
+        int leaf_node_count = list_of_leafs.size();
+        if (leaf_node_count > 1) {
+            Node second_last = list_of_leafs.get(leaf_node_count - 2);
+            Node last = list_of_leafs.get(leaf_node_count - 1);
+            if (last.keys.size() < (this.n + 1) / 2) {
+                int keep = (second_last.keys.size() + last.keys.size() + 1) / 2;
+                while (second_last.keys.size() > keep) {
+                    int move = second_last.keys.size() - 1;
+                    last.keys.add(0, second_last.keys.remove(move));
+                    last.data_pointers.add(0, second_last.data_pointers.remove(move));
+                }
             }
-            
-            // Case where current node is full 
-            else{
-                cur_leaf_index++; 
-                System.out.println("Enter current node full condition");
-                System.out.println("Key position when entering current node full condition: "+ key_position_within_node);
-                cur_leaf_node = list_of_leafs.get(cur_leaf_index); // Move to the next node
-                key_position_within_node = 0; // Start from key position 0 in the next node
-                cur_leaf_node.keys.add(key_position_within_node, (float) cur_key_value); // Set the current key value 
-                cur_leaf_node.data_pointers.add(new ArrayList<PhysicalAddress>()); // Everytime new key --> new list of addresses
-                cur_leaf_node.data_pointers.get(key_position_within_node).add(entry.getValue()); // Append that the address to the list
-                key_position_within_node++; // Move to next insert position
-                previous_key_check = cur_key_value;
+        }
+
+        build_internal_levels(list_of_leafs);
+    }
+
+    // Parallel bulk load from packed (key, RID) entries (see ExternalSorter.pack)
+    // The entries are sorted with Arrays.parallelSort; after that every node's slice of the
+    // level below is known up front, so the leaves and then each internal level are built
+    // node by node in parallel. Separators are the smallest key of the subtree to their right.
+    public void parallel_bulk_loading(long[] entries) {
+        Arrays.parallelSort(entries);
+        int size = entries.length;
+
+        // Position of the first entry of every distinct key
+        int[] key_starts = IntStream.range(0, size).parallel()
+                .filter(i -> i == 0 || (entries[i] >>> 32) != (entries[i - 1] >>> 32))
+                .toArray();
+        int num_keys = key_starts.length;
+
+        // Leaves
+        int[] leaf_starts = node_starts(num_keys, this.n);
+        Node[] leaves = new Node[leaf_starts.length - 1];
+        float[] leaf_mins = new float[leaves.length];
+        IntStream.range(0, leaves.length).parallel().forEach(l -> {
+            Node leaf = new Node(true);
+            for (int k = leaf_starts[l]; k < leaf_starts[l + 1]; k++) {
+                int end = k + 1 < num_keys ? key_starts[k + 1] : size;
+                List<PhysicalAddress> posting = new ArrayList<>(end - key_starts[k]);
+                for (int e = key_starts[k]; e < end; e++) {
+                    int rid = ExternalSorter.unpackRid(entries[e]);
+                    posting.add(new PhysicalAddress(rid / Block.RECORDS_PER_BLOCK, rid % Block.RECORDS_PER_BLOCK));
+                }
+                leaf.keys.add(ExternalSorter.unpackKey(entries[key_starts[k]]));
+                leaf.data_pointers.add(posting);
             }
+            leaves[l] = leaf;
+            leaf_mins[l] = leaf.keys.isEmpty() ? 0 : leaf.keys.get(0);
+        });
+        for (int l = 1; l < leaves.length; l++) {
+            leaves[l - 1].next = leaves[l];
+            leaves[l].prev = leaves[l - 1];
+        }
 
+        // Internal levels, bottom-up
+        Node[] level = leaves;
+        float[] level_mins = leaf_mins;
+        int layers = 1;
+        int total_nodes = leaves.length;
+        while (level.length > 1) {
+            Node[] children = level;
+            float[] child_mins = level_mins;
+            int[] child_starts = node_starts(children.length, this.n + 1);
+            Node[] parents = new Node[child_starts.length - 1];
+            float[] parent_mins = new float[parents.length];
+            IntStream.range(0, parents.length).parallel().forEach(p -> {
+                Node parent = new Node(false);
+                for (int c = child_starts[p]; c < child_starts[p + 1]; c++) {
+                    if (c > child_starts[p]) {
+                        parent.keys.add(child_mins[c]);
+                    }
+                    parent.children.add(children[c]);
+                }
+                parents[p] = parent;
+                parent_mins[p] = child_mins[child_starts[p]];
+            });
+            level = parents;
+            level_mins = parent_mins;
+            layers++;
+            total_nodes += parents.length;
         }
 
-        // testing
-        for (int i = 0; i < leaf_node_count; i++) {
-            System.out.println("Keys and pointers for " + i + "th leaf: " + list_of_leafs.get(i).keys + "\n");
-            System.out.println("Number of keys in " + i + "th leaf: " + list_of_leafs.get(i).keys.size() + "\n");
+        this.root = level[0];
+        this.number_of_layers = layers;
+        this.number_of_nodes = total_nodes;
+    }
 
+    // Split count items into nodes of per_node items: starts[i] is node i's first item and the
+    // last entry is count. Like the sequential loaders, a last node that would be less than
+    // half full shares the items of the last two nodes evenly.
+    private static int[] node_starts(int count, int per_node) {
+        int nodes = Math.max(1, (count + per_node - 1) / per_node);
+        int[] starts = new int[nodes + 1];
+        for (int i = 0; i < nodes; i++) {
+            starts[i] = i * per_node;
         }
+        starts[nodes] = count;
+        if (nodes > 1 && count - starts[nodes - 1] < (per_node + 1) / 2) {
+            starts[nodes - 1] = starts[nodes - 2] + (count - starts[nodes - 2] + 1) / 2;
+        }
+        return starts;
+    }
 
-        int previous_number_of_nodes = leaf_node_count; //set the number of L0 nodes
+    // Build the internal layers bottom-up over a linked list of leaves and set the root
+    private void build_internal_levels(ArrayList<Node> list_of_leafs) {
+        // Backward leaf links mirror the forward ones
+        for (int i = 1; i < list_of_leafs.size(); i++) {
+            list_of_leafs.get(i).prev = list_of_leafs.get(i - 1);
+        }
+
+        int key_position_within_node = 0;
+        float cur_key_value = 0;
+        int previous_number_of_nodes = list_of_leafs.size(); //set the number of L0 nodes
         ArrayList<Node> previous_node_list = list_of_leafs; //create the L1 list of nodes
 
         // int current_number_of_nodes = 0;
@@ -256,11 +273,6 @@ class BPlustree implements Serializable {
             }
             
 
-            for (int i = 0; i < current_number_of_nodes; i++) {
-                System.out.println("Keys and children for " + i + "th node @ layer " + layer +" : "  + current_node_list.get(i).keys + "\n" + current_node_list.get(i).children + "\n");
-
-            }
-
             layer++;
 
             total_nodes += previous_number_of_nodes;
@@ -298,12 +310,193 @@ class BPlustree implements Serializable {
     }    
 
 
+    // Keys are stored fixed-point FG% values (RecordColumn.fixedPointKey), so a fraction range
+    // covers the same rows here as in DirectAddressIndex and StaticSearchTree
+    private static double lower_key(double lower) {
+        int lo = RecordColumn.fixedPointAtLeast(lower);
+        return lo == Integer.MIN_VALUE ? -Double.MAX_VALUE : RecordColumn.fixedPointKey(lo);
+    }
+
+    private static double upper_key(double higher) {
+        int hi = RecordColumn.fixedPointAtMost(higher);
+        return hi == Integer.MAX_VALUE ? Double.MAX_VALUE : RecordColumn.fixedPointKey(hi);
+    }
+
+    // Leftmost leaf that may hold keys >= lower
+    private Node find_leaf(double lower) {
+        Node node = this.root;
+        while (!node.isLeaf) {
+            int i = 0;
+            while (i < node.keys.size() && lower > node.keys.get(i)) {
+                i++;
+            }
+            node = node.children.get(i);
+        }
+        return node;
+    }
+
+    // Rightmost leaf that may hold keys <= higher
+    private Node find_last_leaf(double higher) {
+        Node node = this.root;
+        while (!node.isLeaf) {
+            int i = 0;
+            while (i < node.keys.size() && higher >= node.keys.get(i)) {
+                i++;
+            }
+            node = node.children.get(i);
+        }
+        return node;
+    }
+
+    // Records with keys in [lower, higher], collected instead of printed (each block read once)
+    public List<Record> collect_range(double lower, double higher, Disk disk) throws IOException {
+        return fetch_records(collect_addresses(lower, higher), disk);
+    }
+
+    // Addresses with keys in [lower, higher], copied out of the leaf chain
+    // Callers that guard the tree with a lock hold it only for this walk, not for the block reads.
+    public List<PhysicalAddress> collect_addresses(double lower, double higher) {
+        lower = lower_key(lower);
+        higher = upper_key(higher);
+        List<PhysicalAddress> result = new ArrayList<>();
+        for (Node node = find_leaf(lower); node != null; node = node.next) {
+            for (int j = 0; j < node.keys.size(); j++) {
+                if (node.keys.get(j) > higher) {
+                    return result;
+                }
+                if (node.keys.get(j) >= lower) {
+                    result.addAll(node.data_pointers.get(j));
+                }
+            }
+        }
+        return result;
+    }
+
+    // Live records at the given addresses (each block read once)
+    public static List<Record> fetch_records(List<PhysicalAddress> addresses, Disk disk) throws IOException {
+        List<Record> result = new ArrayList<>();
+        HashMap<Integer, Block> blocks_read = new HashMap<>();
+        for (PhysicalAddress add : addresses) {
+            Block block = blocks_read.get(add.getBlockNumber());
+            if (block == null) {
+                block = disk.readBlock(add.getBlockNumber());
+                blocks_read.put(add.getBlockNumber(), block);
+            }
+            Record record_to_fetch = block.getRecord(add.getIndex());
+            if (record_to_fetch != null) {
+                result.add(record_to_fetch);
+            }
+        }
+        return result;
+    }
+
+    // Index a new record under a key that is already in the tree
+    // Nodes are only built by the bulk loaders and never split, so a new key is rejected.
+    public synchronized boolean add_to_posting(float key, PhysicalAddress address) {
+        for (Node node = find_leaf(key); node != null; node = node.next) {
+            for (int j = 0; j < node.keys.size(); j++) {
+                if (node.keys.get(j) == key) {
+                    node.data_pointers.get(j).add(address);
+                    return true;
+                }
+                if (node.keys.get(j) > key) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    // ORDER BY FG_PCT_home LIMIT k: the k records with the highest (or lowest) key
+    // Seeks straight to one end of the leaf chain and walks it (backwards via prev for
+    // the highest keys), stopping as soon as k live records are found.
+    public List<Record> search_top_k(int k, boolean highest, Disk disk) throws IOException {
+        List<Record> result = new ArrayList<>();
+        if (k <= 0) {
+            return result; // Nothing to find; don't walk the leaf chain
+        }
+        HashMap<Integer, Block> blocks_read = new HashMap<>();
+
+        Node node = highest ? find_last_leaf(Double.MAX_VALUE) : find_leaf(-Double.MAX_VALUE);
+        walk:
+        while (node != null) {
+            for (int step = 0; step < node.keys.size(); step++) {
+                int j = highest ? node.keys.size() - 1 - step : step;
+                for (PhysicalAddress add : node.data_pointers.get(j)) {
+                    Block block = blocks_read.get(add.getBlockNumber());
+                    if (block == null) {
+                        block = disk.readBlock(add.getBlockNumber());
+                        blocks_read.put(add.getBlockNumber(), block);
+                    }
+                    Record record_to_fetch = block.getRecord(add.getIndex());
+                    if (record_to_fetch == null) {
+                        continue; // Deleted record
+                    }
+                    result.add(record_to_fetch);
+                    if (result.size() == k) {
+                        break walk;
+                    }
+                }
+            }
+            node = highest ? node.prev : node.next;
+        }
+        return result;
+    }
+
+    // Point the index entry of a moved record at its new address
+    // fg_pct is the record's stored FG% (x1000), which is exactly what the tree is keyed on.
+    public synchronized boolean relocate(int fg_pct, int old_block, int old_index, PhysicalAddress new_address) {
+        List<PhysicalAddress> posting = find_posting(fg_pct, old_block, old_index);
+        if (posting == null) {
+            return false;
+        }
+        for (int p = 0; p < posting.size(); p++) {
+            PhysicalAddress add = posting.get(p);
+            if (add.getBlockNumber() == old_block && add.getIndex() == old_index) {
+                posting.set(p, new_address);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Drop the index entry of a deleted record (the key stays, possibly with no addresses)
+    public synchronized boolean delete(int fg_pct, int block, int index) {
+        List<PhysicalAddress> posting = find_posting(fg_pct, block, index);
+        if (posting == null) {
+            return false;
+        }
+        return posting.removeIf(add -> add.getBlockNumber() == block && add.getIndex() == index);
+    }
+
+    private List<PhysicalAddress> find_posting(int fg_pct, int block, int index) {
+        float key = RecordColumn.fixedPointKey(fg_pct);
+        for (Node node = find_leaf(key); node != null; node = node.next) {
+            for (int j = 0; j < node.keys.size(); j++) {
+                if (node.keys.get(j) > key) {
+                    return null;
+                }
+                if (node.keys.get(j) < key) {
+                    continue;
+                }
+                for (PhysicalAddress add : node.data_pointers.get(j)) {
+                    if (add.getBlockNumber() == block && add.getIndex() == index) {
+                        return node.data_pointers.get(j);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
     public void search_range(double lower, double higher, Node root, Disk disk) {
         float sum = 0; // to store the total value of FG_PCT_Home
         int count = 0; // to store the total number of records found
         int index_accesses = 0; // at root --> start w 1
         int data_block_accesses = 0;
         HashSet<Integer> unique_block_numbers = new HashSet<>();
+        lower = lower_key(lower);
+        higher = upper_key(higher);
 
         // Move down to the leaf level
         while (!root.isLeaf) {
@@ -326,6 +519,9 @@ class BPlustree implements Serializable {
                             data_block_accesses += 1;
                             unique_block_numbers.add(add.getBlockNumber());
                             Record record_to_fetch = disk.retrieveRecordByAddress(add);
+                            if (record_to_fetch == null) {
+                                continue; // Deleted record
+                            }
                             sum += record_to_fetch.getFgPctHome();
                             count += 1;
 
@@ -359,4 +555,99 @@ class BPlustree implements Serializable {
         }
     }
 
+    // Evaluate many ranges (e.g. histogram buckets) in a single pass over the tree
+    // Descends once to the smallest lower bound, sweeps the leaf chain once up to the
+    // largest upper bound and routes each record to every range containing its key.
+    // Each data block is fetched at most once for the whole batch.
+    public void search_ranges(double[][] ranges, Node root, Disk disk) throws IOException {
+        int num_ranges = ranges.length;
+        if (num_ranges == 0) {
+            return;
+        }
+
+        // Bounds as keys, then visit ranges in order of their lower bound
+        double[][] key_ranges = new double[num_ranges][];
+        Integer[] order = new Integer[num_ranges];
+        for (int r = 0; r < num_ranges; r++) {
+            key_ranges[r] = new double[] { lower_key(ranges[r][0]), upper_key(ranges[r][1]) };
+            order[r] = r;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(key_ranges[a][0], key_ranges[b][0]));
+
+        double lowest = key_ranges[order[0]][0];
+        double highest = key_ranges[0][1];
+        for (double[] range : key_ranges) {
+            highest = Math.max(highest, range[1]);
+        }
+
+        float[] sum = new float[num_ranges];
+        int[] count = new int[num_ranges];
+        int index_accesses = 0;
+        HashMap<Integer, Block> blocks_read = new HashMap<>();
+
+        // Move down to the leaf level once
+        while (!root.isLeaf) {
+            int i = 0;
+            while (i < root.keys.size() && lowest > root.keys.get(i)) {
+                i++;
+            }
+            root = root.children.get(i);
+            index_accesses += 1;
+        }
+
+        // Sweep the leaf chain once
+        sweep:
+        while (root != null) {
+            for (int j = 0; j < root.keys.size(); j++) {
+                float key = root.keys.get(j);
+                if (key > highest) {
+                    break sweep;
+                }
+                if (key < lowest) {
+                    continue;
+                }
+                for (PhysicalAddress add : root.data_pointers.get(j)) {
+                    Record record_to_fetch = null;
+                    for (int r : order) {
+                        if (key_ranges[r][0] > key) {
+                            break; // Remaining ranges start above this key
+                        }
+                        if (key > key_ranges[r][1]) {
+                            continue;
+                        }
+                        if (record_to_fetch == null) {
+                            Block block = add.getBlock();
+                            if (block == null) {
+                                block = blocks_read.get(add.getBlockNumber());
+                                if (block == null) {
+                                    block = disk.readBlock(add.getBlockNumber());
+                                }
+                            }
+                            blocks_read.put(add.getBlockNumber(), block);
+                            record_to_fetch = block.getRecord(add.getIndex());
+                        }
+                        if (record_to_fetch == null) {
+                            break; // Deleted record
+                        }
+                        sum[r] += record_to_fetch.getFgPctHome();
+                        count[r] += 1;
+                    }
+                }
+            }
+            root = root.next;
+            index_accesses += 1;
+        }
+
+        for (int r = 0; r < num_ranges; r++) {
+            if (count[r] > 0) {
+                System.out.println("Range [" + ranges[r][0] + ", " + ranges[r][1] + "] Average: "
+                        + (sum[r] / count[r] / 1000) + ", records found: " + count[r]);
+            } else {
+                System.out.println("Range [" + ranges[r][0] + ", " + ranges[r][1] + "] No records found.");
+            }
+        }
+        System.out.println("Number of index node accessed: " + index_accesses);
+        System.out.println("Number of blocks accessed: " + blocks_read.size());
+    }
+
 }
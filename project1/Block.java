@@ -1,27 +1,35 @@
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.file.SecureDirectoryStream;
 import java.util.ArrayList;
 import java.util.List;
 
+// Slotted page: every record keeps its slot (and so its PhysicalAddress) for life.
+// Deleting a record leaves a tombstone (its slot bit cleared) instead of shifting the others,
+// and the slot bitmap finds a free slot in O(1).
+// Header: Block ID (4) | Num Records (4) | FORMAT (4) | slot bitmap (20), then the slots.
+// FORMAT tags the layout so files written by an older layout are rejected instead of misread.
 class Block implements Serializable{
     public static final int BLOCK_SIZE = 4096; // 4KB block size
     public static final int BLOCK_ID_SIZE = 4; // 4 bytes for Block ID
-    public static final int HEADER_SIZE = 8; // 4 bytes Block ID + 4 bytes Num Records
+    public static final int BITMAP_SIZE = 20; // 160 slot bits, enough for RECORDS_PER_BLOCK
+    public static final int FORMAT = 0x53504731; // "SPG1": slotted page, version 1
+    public static final int FORMAT_OFFSET = BLOCK_ID_SIZE + 4;
+    public static final int BITMAP_OFFSET = FORMAT_OFFSET + 4;
+    public static final int HEADER_SIZE = BITMAP_OFFSET + BITMAP_SIZE; // Block ID + Num Records + FORMAT + slot bitmap
     public static final int RECORDS_PER_BLOCK = (BLOCK_SIZE - HEADER_SIZE) / Record.RECORD_SIZE;
 
-    private List<Record> records;
+    private static final int BITMAP_WORDS = (RECORDS_PER_BLOCK + 63) / 64;
+
+    private Record[] slots; // null marks a free slot or a tombstone
     private int blockID;
-    private ArrayList<Integer> availRecordIndex = new ArrayList<>(); // List of available record indexes in a block
+    private int numRecords; // Live records
+    private long[] usedSlots = new long[BITMAP_WORDS]; // Bit i set → slot i holds a live record
 
     public Block(int blockID){
         this.blockID = blockID;
-        this.records = new ArrayList<>();
-        for (int i = 0; i < RECORDS_PER_BLOCK; i++) { // initially, all slots should be available for record to be
-            // inserted into
-            availRecordIndex.add(i);
-        }
+        this.slots = new Record[RECORDS_PER_BLOCK];
+        this.numRecords = 0;
     }
 
     public int getBlockID() {
@@ -29,31 +37,73 @@ class Block implements Serializable{
     }
 
     public int getRecordCount() {
-        return records.size();
+        return numRecords;
     }
 
     public PhysicalAddress addRecord(Record record) {
-
-        int recordindex = availRecordIndex.get(0);
-
-        try {
-            records.add(record);
-        } catch (Exception e) {
+        int recordindex = findFreeSlot();
+        if (recordindex < 0) {
             System.out.println("Error: Record could not be added to the block.");
             return null;
         }
-        availRecordIndex.remove(0);
+        placeRecord(record, recordindex);
         return new PhysicalAddress(this, recordindex);
+    }
+
+    // First free slot, or -1 if the block is full (scans a fixed BITMAP_WORDS words)
+    private int findFreeSlot() {
+        for (int word = 0; word < BITMAP_WORDS; word++) {
+            long free = ~usedSlots[word];
+            if (free != 0) {
+                int slot = word * 64 + Long.numberOfTrailingZeros(free);
+                return slot < RECORDS_PER_BLOCK ? slot : -1;
+            }
+        }
+        return -1;
+    }
+
+    private void placeRecord(Record record, int slot) {
+        slots[slot] = record;
+        usedSlots[slot >>> 6] |= 1L << slot;
+        numRecords++;
+    }
+
+    // Tombstone a slot; every other record keeps its address
+    public Record deleteRecord(int slot) {
+        Record record = getRecord(slot);
+        if (record == null) {
+            return null;
+        }
+        slots[slot] = null;
+        usedSlots[slot >>> 6] &= ~(1L << slot);
+        numRecords--;
+        return record;
+    }
 
+    // Record in a slot, or null if the slot is free or tombstoned
+    public Record getRecord(int slot) {
+        if (slot < 0 || slot >= RECORDS_PER_BLOCK) {
+            return null;
+        }
+        return slots[slot];
+    }
+
+    public boolean isSlotUsed(int slot) {
+        return getRecord(slot) != null;
     }
 
     public boolean isFull() {
-        if (availRecordIndex.size() == 0)
-            return true;
-        return false;
+        return numRecords == RECORDS_PER_BLOCK;
     }
 
+    // Live records in slot order
     public List<Record> getRecords() {
+        List<Record> records = new ArrayList<>(numRecords);
+        for (Record record : slots) {
+            if (record != null) {
+                records.add(record);
+            }
+        }
         return records;
     }
 
@@ -61,10 +111,16 @@ class Block implements Serializable{
     public byte[] toBytes() {
         ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
         buffer.putInt(blockID); // First 4 bytes → Block ID
-        buffer.putInt(records.size()); // Next 4 bytes → Number of Records
-
-        for (Record record : records) {
-            buffer.put(record.toBytes()); // Write each record's bytes
+        buffer.putInt(numRecords); // Next 4 bytes → Number of Records
+        buffer.putInt(FORMAT); // Next 4 bytes → Block format
+
+        for (int slot = 0; slot < RECORDS_PER_BLOCK; slot++) {
+            if (slots[slot] != null) {
+                int bitmapByte = BITMAP_OFFSET + (slot >>> 3);
+                buffer.put(bitmapByte, (byte) (buffer.get(bitmapByte) | (1 << (slot & 7))));
+                buffer.position(recordOffset(slot));
+                buffer.put(slots[slot].toBytes()); // Write each record's bytes into its slot
+            }
         }
 
         return buffer.array();
@@ -74,19 +130,42 @@ class Block implements Serializable{
     public static Block fromBytes(byte[] bytes) {
         ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
         int blockID = buffer.getInt(); // Read Block ID
-        int numRecords = buffer.getInt(); // Read Number of Records
 
         Block block = new Block(blockID);
-        for (int i = 0; i < numRecords; i++) {
-            byte[] recordBytes = new byte[Record.RECORD_SIZE];
-            buffer.get(recordBytes); // Read next record
-            block.addRecord(Record.fromBytes(recordBytes)); // Convert bytes to Record
+        byte[] recordBytes = new byte[Record.RECORD_SIZE];
+        for (int slot = 0; slot < RECORDS_PER_BLOCK; slot++) {
+            if (isSlotUsed(buffer, slot)) {
+                buffer.position(recordOffset(slot));
+                buffer.get(recordBytes); // Read the record in this slot
+                block.placeRecord(Record.fromBytes(recordBytes), slot); // Convert bytes to Record
+            }
         }
         return block;
     }
 
+    // Raw-bytes access for scan operators that avoid building Records
+    // Whether a slot of a block image read by Disk.readBlockBytes holds a live record
+    public static boolean isSlotUsed(ByteBuffer blockBytes, int slot) {
+        return (blockBytes.get(BITMAP_OFFSET + (slot >>> 3)) & (1 << (slot & 7))) != 0;
+    }
+
+    // Whether a block image was written in the current FORMAT
+    public static boolean hasCurrentFormat(ByteBuffer blockBytes) {
+        return blockBytes.getInt(FORMAT_OFFSET) == FORMAT;
+    }
+
+    // Number of live records in a block image
+    public static int recordCount(ByteBuffer blockBytes) {
+        return blockBytes.getInt(BLOCK_ID_SIZE);
+    }
+
+    // Byte offset of a record slot within a block image
+    public static int recordOffset(int slot) {
+        return HEADER_SIZE + slot * Record.RECORD_SIZE;
+    }
+
     @Override
     public String toString() {
-        return "Block ID: " + blockID + ", Records Stored: " + records;
+        return "Block ID: " + blockID + ", Records Stored: " + getRecords();
     }
 }
@@ -0,0 +1,179 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Repacks sparse blocks left behind by deletes and fixes up the indexes
+// Records are moved from the sparsest high-numbered blocks into free slots of low-numbered
+// sparse blocks. Every moved record gets its new address in the primary index, the B+ tree
+// and the Bloom filters. Empty blocks left at the end of the table are dropped from the new
+// version, so scans stop reading them and their space is reused.
+// Each pass is a SnapshotWriter transaction: blocks are rewritten copy-on-write and the indexes
+// updated are the new version's copies, so queries on a published snapshot never see a pass
+// half done, and see its result once it is published.
+// Run once (main) or in the background of a long-running process (start/stop).
+public class BlockCompactor implements Runnable {
+    public static final double DEFAULT_FILL_THRESHOLD = 0.5; // Blocks at most half full are compacted
+
+    private final String metadataPath;
+    private final double fillThreshold;
+    private ScheduledExecutorService scheduler;
+
+    public BlockCompactor(String metadataPath, double fillThreshold) {
+        this.metadataPath = metadataPath;
+        this.fillThreshold = fillThreshold;
+    }
+
+    // One compaction pass over the published snapshot; returns the number of records moved
+    // A pass that moves nothing publishes nothing.
+    public int compactOnce() throws IOException {
+        try (SnapshotWriter writer = SnapshotWriter.begin(metadataPath)) {
+            if (!writer.getPrevious().hasTree()) {
+                return 0; // Nothing loaded yet
+            }
+            Disk disk = writer.getDisk();
+            int numBlocks = writer.getPrevious().getDataBlockCount();
+            BPlustree tree;
+            try {
+                tree = writer.readTree();
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Could not read the B+ tree of " + writer.getPrevious(), e);
+            }
+            BloomFilterIndex teamFilters = BloomFilterIndex.openForUpdate(writer.file(SnapshotManager.TEAM_BLOOM_FILE));
+            MappingTable primaryIndex = writer.openPrimaryIndex();
+            int moved;
+            try {
+                moved = compact(disk, numBlocks, primaryIndex, tree, teamFilters);
+            } finally {
+                primaryIndex.close();
+            }
+            int dataBlockCount = withoutEmptyTail(disk, numBlocks);
+            if (moved > 0 || dataBlockCount < numBlocks) {
+                writer.publish(tree, dataBlockCount);
+            }
+            return moved;
+        }
+    }
+
+    private int compact(Disk disk, int numBlocks, MappingTable primaryIndex, BPlustree tree,
+            BloomFilterIndex teamFilters) throws IOException {
+        List<Integer> sparse = findSparseBlocks(disk, numBlocks);
+        int moved = 0;
+        int lo = 0, hi = sparse.size() - 1;
+        Block target = null, source = null;
+
+        while (lo < hi) {
+            if (target == null) {
+                target = disk.readBlock(sparse.get(lo));
+            }
+            if (source == null) {
+                source = disk.readBlock(sparse.get(hi));
+            }
+
+            for (int slot = 0; slot < Block.RECORDS_PER_BLOCK && !target.isFull(); slot++) {
+                if (source.isSlotUsed(slot)) {
+                    moveRecord(source, slot, target, primaryIndex, tree, teamFilters);
+                    moved++;
+                }
+            }
+
+            if (target.isFull()) {
+                disk.writeBlock(target);
+                target = null;
+                lo++;
+            }
+            if (source.getRecordCount() == 0) {
+                disk.writeBlock(source);
+                source = null;
+                hi--;
+            }
+        }
+        if (target != null) {
+            disk.writeBlock(target);
+        }
+        if (source != null) {
+            disk.writeBlock(source);
+        }
+        return moved;
+    }
+
+    // Number of blocks once the empty blocks at the end are dropped
+    private static int withoutEmptyTail(Disk disk, int numBlocks) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Block.BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        int count = numBlocks;
+        while (count > 0) {
+            disk.readBlockBytes(count - 1, buffer);
+            if (Block.recordCount(buffer) > 0) {
+                break;
+            }
+            count--;
+        }
+        return count;
+    }
+
+    // Non-empty blocks whose live records are at or below the fill threshold
+    private List<Integer> findSparseBlocks(Disk disk, int numBlocks) throws IOException {
+        List<Integer> sparse = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(Block.BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int blockID = 0; blockID < numBlocks; blockID++) {
+            disk.readBlockBytes(blockID, buffer);
+            int count = Block.recordCount(buffer);
+            if (count > 0 && count <= fillThreshold * Block.RECORDS_PER_BLOCK) {
+                sparse.add(blockID);
+            }
+        }
+        return sparse;
+    }
+
+    private static void moveRecord(Block source, int slot, Block target, MappingTable primaryIndex, BPlustree tree,
+            BloomFilterIndex teamFilters) throws IOException {
+        Record record = source.deleteRecord(slot);
+        PhysicalAddress address = target.addRecord(record);
+        primaryIndex.addMapping(record.getRecordID(), address);
+        tree.relocate(record.getFgPctHome(), source.getBlockID(), slot,
+                new PhysicalAddress(target.getBlockID(), address.getIndex()));
+        teamFilters.add(target.getBlockID(), record.getTeamIDHome());
+    }
+
+    @Override
+    public void run() {
+        try {
+            int moved = compactOnce();
+            if (moved > 0) {
+                System.out.println("Compactor moved " + moved + " records.");
+            }
+        } catch (IOException e) {
+            System.err.println("Compaction failed: " + e.getMessage());
+        }
+    }
+
+    // Compact in the background every periodSeconds on a daemon thread
+    public void start(long periodSeconds) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "block-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    // One-shot compaction of the published snapshot into a new version
+    public static void main(String[] args) {
+        try {
+            int moved = new BlockCompactor("metadata.dat", DEFAULT_FILL_THRESHOLD).compactOnce();
+            System.out.println("Number of records moved: " + moved);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Logical → physical block numbers of one snapshot
+// Every address (PhysicalAddress, RIDs, the primary index) names a logical block; Disk turns
+// it into a block of disk_storage.dat through the map of the snapshot it was opened on.
+// A published map never changes. A writer works on a copy (forWriting): the first write of a
+// logical block goes to a physical block no retained snapshot uses, so readers of the
+// published versions never see a block change under them.
+class BlockMap {
+    private int[] physical;
+    private int size;
+
+    // Writer state; null for a published, read-only map
+    private BitSet copied; // Logical blocks already moved to a fresh physical block
+    private BitSet free; // Physical blocks no retained snapshot uses
+    private int fileBlocks; // Physical blocks in the data file
+
+    private BlockMap(int[] physical, int size) {
+        this.physical = physical;
+        this.size = size;
+    }
+
+    // Map saved by SnapshotWriter.publish (empty if there is none yet)
+    public static BlockMap load(String fileName) throws IOException {
+        if (!new File(fileName).exists()) {
+            return new BlockMap(new int[0], 0);
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+            int size = in.readInt();
+            int[] physical = new int[size];
+            for (int i = 0; i < size; i++) {
+                physical[i] = in.readInt();
+            }
+            return new BlockMap(physical, size);
+        }
+    }
+
+    public void save(String fileName) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))) {
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeInt(physical[i]);
+            }
+        }
+    }
+
+    // Writable copy for one write transaction; inUse holds the physical blocks of every retained snapshot
+    public BlockMap forWriting(BitSet inUse, int fileBlocks) {
+        BlockMap copy = new BlockMap(Arrays.copyOf(physical, Math.max(16, size)), size);
+        copy.copied = new BitSet();
+        copy.free = new BitSet();
+        copy.free.set(0, fileBlocks);
+        copy.free.andNot(inUse);
+        copy.fileBlocks = fileBlocks;
+        return copy;
+    }
+
+    public boolean isWritable() {
+        return copied != null;
+    }
+
+    // Number of logical blocks
+    public int size() {
+        return size;
+    }
+
+    // Physical block of a logical block, or -1 if the snapshot has no such block
+    public int physical(int logical) {
+        return logical >= 0 && logical < size ? physical[logical] : -1;
+    }
+
+    // Physical block a write of this logical block goes to (a new logical block may only extend the map)
+    public int writeTarget(int logical) throws IOException {
+        if (!isWritable()) {
+            throw new IOException("Block " + logical + " belongs to a published snapshot and is read-only");
+        }
+        if (logical < 0 || logical > size) {
+            throw new IOException("Block " + logical + " would leave a gap after block " + (size - 1));
+        }
+        if (!copied.get(logical)) {
+            if (logical == size) {
+                if (size == physical.length) {
+                    physical = Arrays.copyOf(physical, size * 2);
+                }
+                size++;
+            }
+            physical[logical] = allocate();
+            copied.set(logical);
+        }
+        return physical[logical];
+    }
+
+    private int allocate() throws IOException {
+        int block = free.nextSetBit(0);
+        if (block < 0) {
+            block = fileBlocks++;
+        } else {
+            free.clear(block);
+        }
+        if (block >= Disk.MAX_BLOCKS) {
+            throw new IOException("Disk is full: all " + Disk.MAX_BLOCKS + " blocks are in use");
+        }
+        return block;
+    }
+
+    // Drop the logical blocks from size on (e.g. empty blocks at the end of the table)
+    public void truncate(int size) {
+        this.size = Math.min(this.size, size);
+    }
+
+    // Add the physical blocks this map uses to inUse
+    public void markUsed(BitSet inUse) {
+        for (int i = 0; i < size; i++) {
+            inUse.set(physical[i]);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+// Per-block Bloom filters over one int column (e.g. teamIDHome)
+// Equality predicates on such columns cannot use the FG% B+ tree, so the scan path
+// asks the filter of each block first and only calls Disk.readBlock on a possible match.
+//
+// File layout: [numBlocks (4) | FILTER_SIZE (4) | NUM_HASHES (4)] followed by one
+// FILTER_SIZE-byte bit array per block, so the file can be memory-mapped and probed in place.
+class BloomFilterIndex {
+    public static final int FILTER_SIZE = 128; // 1024 bits per block (~156 keys, k = 5 → < 5% false positives)
+    public static final int NUM_HASHES = 5;
+    public static final int HEADER_SIZE = 12;
+
+    private static final int FILTER_BITS = FILTER_SIZE * 8;
+
+    private List<byte[]> filters; // Used while building
+    private MappedByteBuffer mapped; // Used after open()
+    private int numBlocks;
+
+    // Create an empty filter set to be filled by the loader
+    public BloomFilterIndex() {
+        this.filters = new ArrayList<>();
+        this.numBlocks = 0;
+    }
+
+    private BloomFilterIndex(MappedByteBuffer mapped, int numBlocks) {
+        this.mapped = mapped;
+        this.numBlocks = numBlocks;
+    }
+
+    public int getNumBlocks() {
+        return numBlocks;
+    }
+
+    public void add(int blockID, int key) {
+        if (mapped == null) {
+            while (filters.size() <= blockID) {
+                filters.add(new byte[FILTER_SIZE]);
+            }
+            numBlocks = filters.size();
+        } else if (blockID >= numBlocks) {
+            return; // Blocks past the mapped file have no filter and are always read
+        }
+        int h1 = mix(key);
+        int h2 = mix(h1) | 1;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, FILTER_BITS);
+            setFilterBit(blockID, bit);
+        }
+    }
+
+    private void setFilterBit(int blockID, int bit) {
+        if (mapped != null) {
+            int position = HEADER_SIZE + blockID * FILTER_SIZE + (bit >>> 3);
+            mapped.put(position, (byte) (mapped.get(position) | (1 << (bit & 7))));
+        } else {
+            filters.get(blockID)[bit >>> 3] |= (byte) (1 << (bit & 7));
+        }
+    }
+
+    // False means the block definitely has no record with this key
+    public boolean mightContain(int blockID, int key) {
+        if (blockID >= numBlocks) {
+            return true; // No filter for this block: it has to be read
+        }
+        int h1 = mix(key);
+        int h2 = mix(h1) | 1;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, FILTER_BITS);
+            if ((getFilterByte(blockID, bit >>> 3) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte getFilterByte(int blockID, int offset) {
+        if (mapped != null) {
+            return mapped.get(HEADER_SIZE + blockID * FILTER_SIZE + offset);
+        }
+        return filters.get(blockID)[offset];
+    }
+
+    // Murmur3 finalizer: spreads sequential team IDs over the whole bit array
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    public void save(String fileName) throws IOException {
+        File tmp = new File(fileName + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp))) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(numBlocks);
+            header.putInt(FILTER_SIZE);
+            header.putInt(NUM_HASHES);
+            out.write(header.array());
+            for (byte[] filter : filters) {
+                out.write(filter);
+            }
+        }
+        SnapshotManager.replaceAtomically(tmp, fileName); // Readers keep their mapping of the old file
+    }
+
+    // Read a saved filter file into memory so a loader can add blocks and save it again
+    public static BloomFilterIndex load(String fileName) throws IOException {
+        BloomFilterIndex index = new BloomFilterIndex();
+        if (!new File(fileName).exists()) {
+            return index;
+        }
+        BloomFilterIndex saved = open(fileName);
+        for (int blockID = 0; blockID < saved.numBlocks; blockID++) {
+            byte[] filter = new byte[FILTER_SIZE];
+            for (int i = 0; i < FILTER_SIZE; i++) {
+                filter[i] = saved.getFilterByte(blockID, i);
+            }
+            index.filters.add(filter);
+        }
+        index.numBlocks = saved.numBlocks;
+        return index;
+    }
+
+    // Memory-map a saved filter file (read-only)
+    public static BloomFilterIndex open(String fileName) throws IOException {
+        return open(fileName, false);
+    }
+
+    // Memory-map a saved filter file so that add() updates it in place (e.g. when records move blocks)
+    public static BloomFilterIndex openForUpdate(String fileName) throws IOException {
+        return open(fileName, true);
+    }
+
+    private static BloomFilterIndex open(String fileName, boolean writable) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, writable ? "rw" : "r");
+                FileChannel channel = file.getChannel()) {
+            MappedByteBuffer mapped = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                    0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            int numBlocks = mapped.getInt(0);
+            if (mapped.getInt(4) != FILTER_SIZE || mapped.getInt(8) != NUM_HASHES) {
+                throw new IOException("Bloom filter file " + fileName + " was built with different parameters");
+            }
+            return new BloomFilterIndex(mapped, numBlocks);
+        }
+    }
+}
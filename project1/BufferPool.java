@@ -0,0 +1,62 @@
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Shared LRU cache of blocks in front of a Disk
+// Safe to use from many threads: the frame table is guarded by the pool and
+// the underlying RandomAccessFile (seek + read) by the Disk.
+// A pool in front of a snapshot's Disk never needs invalidating: a published snapshot's blocks
+// never change, and a new version gets a new pool (see QueryServer).
+class BufferPool {
+    public static final int DEFAULT_CAPACITY = 256; // Frames (1 MB of 4KB blocks)
+
+    private final Disk disk;
+    private final LinkedHashMap<Integer, Block> frames;
+    private long hits;
+    private long misses;
+
+    public BufferPool(Disk disk) {
+        this(disk, DEFAULT_CAPACITY);
+    }
+
+    public BufferPool(Disk disk, int capacity) {
+        this.disk = disk;
+        this.frames = new LinkedHashMap<Integer, Block>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Block> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public Disk getDisk() {
+        return disk;
+    }
+
+    public Block getBlock(int blockID) throws IOException {
+        synchronized (this) {
+            Block block = frames.get(blockID);
+            if (block != null) {
+                hits++;
+                return block;
+            }
+        }
+        Block block;
+        synchronized (disk) {
+            block = disk.readBlock(blockID);
+        }
+        synchronized (this) {
+            misses++;
+            frames.put(blockID, block);
+        }
+        return block;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,160 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Sparse index on the clustering column of a table loaded with LoadFileOnDisk --cluster=<column>
+// Instead of one RID per record it keeps one (min, max) key range per data block. When the
+// blocks are in key order (clustered), a range query binary-searches its first block and
+// reads a contiguous run of blocks sequentially; otherwise the ranges still let a scan skip
+// every block that cannot match.
+class ClusteredIndex {
+    private final RecordColumn column;
+    private final int[] minKey; // Per block, over its live records
+    private final int[] maxKey;
+    private final int[] reach; // Largest key in blocks 0..i, non-decreasing for the binary search
+    private final boolean clustered; // Block key ranges never go backwards
+
+    private ClusteredIndex(RecordColumn column, int[] minKey, int[] maxKey) {
+        this.column = column;
+        this.minKey = minKey;
+        this.maxKey = maxKey;
+        this.reach = new int[minKey.length];
+        boolean ordered = true;
+        int highest = Integer.MIN_VALUE;
+        for (int blockID = 0; blockID < minKey.length; blockID++) {
+            if (minKey[blockID] <= maxKey[blockID]) { // Skip empty blocks
+                if (minKey[blockID] < highest) {
+                    ordered = false;
+                }
+                highest = Math.max(highest, maxKey[blockID]);
+            }
+            reach[blockID] = highest;
+        }
+        this.clustered = ordered;
+    }
+
+    public RecordColumn getColumn() {
+        return column;
+    }
+
+    public boolean isClustered() {
+        return clustered;
+    }
+
+    public static ClusteredIndex build(Disk disk, int numBlocks, RecordColumn column) throws IOException {
+        int[] minKey = new int[numBlocks];
+        int[] maxKey = new int[numBlocks];
+
+        ByteBuffer buffer = ByteBuffer.allocate(Block.BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int blockID = 0; blockID < numBlocks; blockID++) {
+            disk.readBlockBytes(blockID, buffer);
+            minKey[blockID] = Integer.MAX_VALUE;
+            maxKey[blockID] = Integer.MIN_VALUE;
+            for (int slot = 0; slot < Block.RECORDS_PER_BLOCK; slot++) {
+                if (!Block.isSlotUsed(buffer, slot)) {
+                    continue;
+                }
+                int key = column.read(buffer, Block.recordOffset(slot));
+                minKey[blockID] = Math.min(minKey[blockID], key);
+                maxKey[blockID] = Math.max(maxKey[blockID], key);
+            }
+        }
+        return new ClusteredIndex(column, minKey, maxKey);
+    }
+
+    public void save(String fileName) throws IOException {
+        File tmp = new File(fileName + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeUTF(column.name());
+            out.writeInt(minKey.length);
+            for (int blockID = 0; blockID < minKey.length; blockID++) {
+                out.writeInt(minKey[blockID]);
+                out.writeInt(maxKey[blockID]);
+            }
+        }
+        SnapshotManager.replaceAtomically(tmp, fileName);
+    }
+
+    public static ClusteredIndex load(String fileName) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+            RecordColumn column = RecordColumn.valueOf(in.readUTF());
+            int numBlocks = in.readInt();
+            int[] minKey = new int[numBlocks];
+            int[] maxKey = new int[numBlocks];
+            for (int blockID = 0; blockID < numBlocks; blockID++) {
+                minKey[blockID] = in.readInt();
+                maxKey[blockID] = in.readInt();
+            }
+            return new ClusteredIndex(column, minKey, maxKey);
+        }
+    }
+
+    // First block whose keys may reach lower (only meaningful when clustered)
+    private int firstBlock(int lower) {
+        int lo = 0;
+        int hi = reach.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (reach[mid] < lower) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Bounds are stored column values, e.g. 600..900 for FG% 0.6..0.9 or 20220101..20221231
+    public void search_range(int lower, int higher, Disk disk) {
+        long sum = 0; // to store the total value of the clustering column
+        int count = 0; // to store the total number of records found
+        int blocks_read = 0;
+
+        ByteBuffer buffer = ByteBuffer.allocate(Block.BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        int start = clustered ? firstBlock(lower) : 0;
+        for (int blockID = start; blockID < minKey.length; blockID++) {
+            if (minKey[blockID] > maxKey[blockID] || maxKey[blockID] < lower) {
+                continue;
+            }
+            if (minKey[blockID] > higher) {
+                if (clustered) {
+                    break; // Every later block starts above the range
+                }
+                continue;
+            }
+            try {
+                disk.readBlockBytes(blockID, buffer);
+                blocks_read++;
+                for (int slot = 0; slot < Block.RECORDS_PER_BLOCK; slot++) {
+                    if (!Block.isSlotUsed(buffer, slot)) {
+                        continue;
+                    }
+                    int key = column.read(buffer, Block.recordOffset(slot));
+                    if (key >= lower && key <= higher) {
+                        sum += key;
+                        count += 1;
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Error reading block " + blockID + ": " + e.getMessage());
+            }
+        }
+
+        if (count > 0) {
+            float avg = column.isFixedPoint() ? (float) sum / count / 1000 : (float) sum / count;
+            System.out.println("Average: " + avg);
+            System.out.println("Total records found: " + count);
+            System.out.println("Number of blocks accessed: " + blocks_read
+                    + (clustered ? " (contiguous from block " + start + ")" : ""));
+        } else {
+            System.out.println("No records found in the given range.");
+        }
+    }
+}
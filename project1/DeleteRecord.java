@@ -0,0 +1,35 @@
+// Delete records by ID: java -cp bin DeleteRecord <recordID> [<recordID> ...]
+// Each record's slot becomes a tombstone, so every other record keeps its address;
+// the primary index and the B+ tree entries of the deleted records are removed.
+// The changed blocks and indexes form a new snapshot, so running queries are not affected.
+public class DeleteRecord {
+    public static void main(String[] args) {
+        try (SnapshotWriter writer = SnapshotWriter.begin("metadata.dat")) {
+            Disk disk = writer.getDisk();
+            MappingTable primaryIndex = writer.openPrimaryIndex();
+            BPlustree tree = writer.readTree();
+
+            int deleted = 0;
+            for (String arg : args) {
+                int recordID = Integer.parseInt(arg);
+                int[] location = primaryIndex.getLocation(recordID);
+                Record record = location == null ? null : disk.deleteRecord(location[0], location[1]);
+                if (record == null) {
+                    System.out.println("Record " + recordID + " not found.");
+                    continue;
+                }
+                primaryIndex.removeMapping(recordID);
+                tree.delete(record.getFgPctHome(), location[0], location[1]);
+                deleted++;
+            }
+            System.out.println("Number of records deleted: " + deleted);
+            primaryIndex.close();
+
+            if (deleted > 0) {
+                writer.publish(tree, writer.getPrevious().getDataBlockCount());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
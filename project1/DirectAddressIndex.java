@@ -0,0 +1,172 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Direct-address index for the fixed-point percentage columns (FG%, FT%, FG3% stored x1000)
+// The key domain is only 0..MAX_KEY, so instead of a comparison tree there is one bucket per
+// key value: bucketStart[k] is the offset of key k's posting range in rids, and a range
+// [lo, hi] is the single slice rids[bucketStart[lo] .. bucketStart[hi + 1]).
+// RIDs are packed as blockID * RECORDS_PER_BLOCK + record index.
+class DirectAddressIndex {
+    public static final int MAX_KEY = 1000;
+    public static final RecordColumn[] COLUMNS = { RecordColumn.FG_PCT_HOME, RecordColumn.FT_PCT_HOME,
+            RecordColumn.FG3_PCT_HOME };
+
+    private final RecordColumn column;
+    private final int[] bucketStart; // MAX_KEY + 2 entries
+    private final int[] rids;
+
+    private DirectAddressIndex(RecordColumn column, int[] bucketStart, int[] rids) {
+        this.column = column;
+        this.bucketStart = bucketStart;
+        this.rids = rids;
+    }
+
+    // Snapshot file of a column's index, e.g. fg_pct_direct.dat
+    public static String fileName(RecordColumn column) {
+        return column.name().toLowerCase().replace("_home", "") + "_direct.dat";
+    }
+
+    public RecordColumn getColumn() {
+        return column;
+    }
+
+    // One scan over the data blocks, then a counting sort into key buckets (no comparisons)
+    public static DirectAddressIndex build(Disk disk, int numBlocks, RecordColumn column) throws IOException {
+        int[] keys = new int[numBlocks * Block.RECORDS_PER_BLOCK];
+        int[] unsorted = new int[keys.length];
+        int n = 0;
+
+        ByteBuffer buffer = ByteBuffer.allocate(Block.BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int blockID = 0; blockID < numBlocks; blockID++) {
+            disk.readBlockBytes(blockID, buffer);
+            for (int slot = 0; slot < Block.RECORDS_PER_BLOCK; slot++) {
+                if (!Block.isSlotUsed(buffer, slot)) {
+                    continue;
+                }
+                int key = column.read(buffer, Block.recordOffset(slot));
+                if (key < 0 || key > MAX_KEY) {
+                    throw new IOException("Key " + key + " of " + column + " is outside 0.." + MAX_KEY);
+                }
+                keys[n] = key;
+                unsorted[n] = blockID * Block.RECORDS_PER_BLOCK + slot;
+                n++;
+            }
+        }
+
+        int[] bucketStart = new int[MAX_KEY + 2];
+        for (int i = 0; i < n; i++) {
+            bucketStart[keys[i] + 1]++;
+        }
+        for (int k = 1; k < bucketStart.length; k++) {
+            bucketStart[k] += bucketStart[k - 1];
+        }
+        int[] next = Arrays.copyOf(bucketStart, bucketStart.length);
+        int[] rids = new int[n];
+        for (int i = 0; i < n; i++) {
+            rids[next[keys[i]]++] = unsorted[i];
+        }
+        return new DirectAddressIndex(column, bucketStart, rids);
+    }
+
+    public void save(String fileName) throws IOException {
+        File tmp = new File(fileName + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeUTF(column.name());
+            out.writeInt(rids.length);
+            for (int start : bucketStart) {
+                out.writeInt(start);
+            }
+            for (int rid : rids) {
+                out.writeInt(rid);
+            }
+        }
+        SnapshotManager.replaceAtomically(tmp, fileName);
+    }
+
+    public static DirectAddressIndex load(String fileName) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+            RecordColumn column = RecordColumn.valueOf(in.readUTF());
+            int[] rids = new int[in.readInt()];
+            int[] bucketStart = new int[MAX_KEY + 2];
+            for (int k = 0; k < bucketStart.length; k++) {
+                bucketStart[k] = in.readInt();
+            }
+            for (int i = 0; i < rids.length; i++) {
+                rids[i] = in.readInt();
+            }
+            return new DirectAddressIndex(column, bucketStart, rids);
+        }
+    }
+
+    // First posting of the smallest key >= lower (bounds are fractions, e.g. 0.6)
+    public int rangeStart(double lower) {
+        int lo = RecordColumn.fixedPointAtLeast(lower);
+        return bucketStart[Math.max(0, Math.min(MAX_KEY + 1, lo))];
+    }
+
+    // End (exclusive) of the postings of keys <= higher
+    public int rangeEnd(double higher) {
+        int hi = RecordColumn.fixedPointAtMost(higher);
+        return bucketStart[Math.max(0, Math.min(MAX_KEY, hi) + 1)];
+    }
+
+    public int getRidBlock(int position) {
+        return rids[position] / Block.RECORDS_PER_BLOCK;
+    }
+
+    public int getRidIndex(int position) {
+        return rids[position] % Block.RECORDS_PER_BLOCK;
+    }
+
+    public void search_range(double lower, double higher, Disk disk) {
+        int lo = RecordColumn.fixedPointAtLeast(lower);
+        int hi = RecordColumn.fixedPointAtMost(higher);
+        float sum = 0; // to store the total value of the indexed column
+        int count = 0; // to store the total number of records found
+        Map<Integer, Block> blocks_read = new HashMap<>(); // each data block is read once per query
+
+        int end = rangeEnd(higher);
+        for (int position = rangeStart(lower); position < end; position++) {
+            try {
+                int blockID = getRidBlock(position);
+                Block block = blocks_read.get(blockID);
+                if (block == null) {
+                    block = disk.readBlock(blockID);
+                    blocks_read.put(blockID, block);
+                }
+                Record record_to_fetch = block.getRecord(getRidIndex(position));
+                if (record_to_fetch == null) {
+                    continue; // Deleted since the index was built
+                }
+                int key = column.get(record_to_fetch);
+                if (key < lo || key > hi) {
+                    continue; // Slot reused by another record since the index was built
+                }
+                sum += key;
+                count += 1;
+            } catch (IOException e) {
+                System.err.println("Error retrieving record: " + e.getMessage());
+            }
+        }
+
+        if (count > 0) {
+            float avg = sum / count / 1000;
+            System.out.println("Average: " + avg);
+            System.out.println("Total records found: " + count);
+            System.out.println("Number of blocks accessed: " + blocks_read.size());
+        } else {
+            System.out.println("No records found in the given range.");
+        }
+    }
+}
@@ -1,14 +1,30 @@
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
 
+// Block file of the table
+// Opened on a snapshot (Snapshot.openDisk, SnapshotWriter.getDisk) block IDs are logical and
+// go through that snapshot's BlockMap; opened on a plain path they are positions in the file.
 class Disk {
     public static final int DISK_SIZE = 4 * 1024 * 1024;
     public static final int BLOCK_SIZE = 4096;
     public static final int MAX_BLOCKS = DISK_SIZE / BLOCK_SIZE;
     private RandomAccessFile diskFile;
+    private final String filePath;
+    private final BlockMap blockMap; // null: block IDs are physical
     private int blockCounter;
+    private final AtomicLong blocksRead = new AtomicLong(); // I/O counters for this Disk (all threads)
+    private final AtomicLong blocksWritten = new AtomicLong();
 
     public Disk(String filePath) throws IOException {
+        this(filePath, null);
+    }
+
+    public Disk(String filePath, BlockMap blockMap) throws IOException {
+        this.filePath = filePath;
+        this.blockMap = blockMap;
         diskFile = new RandomAccessFile(filePath, "rw");
         blockCounter = countExistingBlocks();
     }
@@ -20,37 +36,83 @@ class Disk {
     }
 
     public int getBlockCounter() {
-        return blockCounter;
+        return blockMap != null ? blockMap.size() : blockCounter;
     }
 
-    // Helper function to get the next available block ID
-    public int findAvailableBlock() throws IOException {
-        for (int blockID = 0; blockID < blockCounter; blockID++) {
-            Block block = readBlock(blockID);
-            if (block.getRecords().size() < Block.RECORDS_PER_BLOCK) {
-                return blockID; // Found a block with space
+    public BlockMap getBlockMap() {
+        return blockMap;
+    }
+
+    // File position of a block
+    private long offsetOf(int blockID) throws IOException {
+        if (blockMap == null) {
+            if (blockID >= MAX_BLOCKS) {
+                throw new IOException("Invalid block index");
             }
+            return (long) blockID * BLOCK_SIZE;
+        }
+        int physical = blockMap.physical(blockID);
+        if (physical < 0) {
+            throw new IOException("Block " + blockID + " is not part of this snapshot");
         }
-        return blockCounter; // Return the next available block
+        return (long) physical * BLOCK_SIZE;
+    }
+
+    public long getBlocksRead() {
+        return blocksRead.get();
+    }
+
+    public long getBlocksWritten() {
+        return blocksWritten.get();
     }
 
     public void writeBlock(Block block) throws IOException {
         int blockID = block.getBlockID();
-        diskFile.seek((long) blockID * BLOCK_SIZE);
+        int physical = blockMap != null ? blockMap.writeTarget(blockID) : blockID; // Copy-on-write on a snapshot
+        diskFile.seek((long) physical * BLOCK_SIZE);
         diskFile.write(block.toBytes());
-        blockCounter++;
+        blocksWritten.incrementAndGet();
+        blockCounter = Math.max(blockCounter, physical + 1); // Rewriting a block in place does not add one
+    }
+
+    // Force written blocks to the device before a snapshot that uses them is published
+    public void sync() throws IOException {
+        diskFile.getFD().sync();
     }
 
     public Block readBlock(int blockID) throws IOException {
-        if (blockID >= MAX_BLOCKS) {
-            throw new IOException("Invalid block index");
-        }
+        long offset = offsetOf(blockID);
         byte[] blockData = new byte[BLOCK_SIZE];
-        diskFile.seek((long) blockID * BLOCK_SIZE);
+        diskFile.seek(offset);
         diskFile.readFully(blockData);
+        blocksRead.incrementAndGet();
+        checkFormat(blockID, ByteBuffer.wrap(blockData).order(ByteOrder.LITTLE_ENDIAN));
         return Block.fromBytes(blockData);
     }
 
+    // Reject blocks written in an older layout instead of decoding them as garbage
+    private void checkFormat(int blockID, ByteBuffer blockBytes) throws IOException {
+        if (!Block.hasCurrentFormat(blockBytes)) {
+            throw new IOException("Block " + blockID + " of " + filePath + " is not in the current block format; "
+                    + "delete the old .dat files and re-run LoadFileOnDisk");
+        }
+    }
+
+    // Read a block image into a caller-owned buffer without deserializing it
+    // Uses a positional channel read, so scan threads can share one Disk.
+    public void readBlockBytes(int blockID, ByteBuffer buffer) throws IOException {
+        long position = offsetOf(blockID);
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (diskFile.getChannel().read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file in block " + blockID);
+            }
+        }
+        buffer.flip();
+        blocksRead.incrementAndGet();
+        checkFormat(blockID, buffer);
+    }
+
     public void retrieveBlockData(int blockID) throws IOException {
         Block block = readBlock(blockID);
         System.out.println("Block ID: " + block.getBlockID());
@@ -61,7 +123,7 @@ class Disk {
     }
 
     public Record retrieveRecord(int recordID) throws IOException {
-        for (int blockID = 0; blockID < blockCounter; blockID++) {
+        for (int blockID = 0; blockID < getBlockCounter(); blockID++) {
             Block block = readBlock(blockID);
             for (Record record : block.getRecords()) {
                 if (record.getRecordID() == recordID) {
@@ -74,14 +136,43 @@ class Disk {
         return null;
     }
 
-    // Retrieve a specific record using its physical address
+    // Retrieve a record through the primary index: one index probe + one block read
+    public Record retrieveRecord(int recordID, MappingTable primaryIndex) throws IOException {
+        int[] location = primaryIndex.getLocation(recordID);
+        if (location == null) {
+            System.out.println("Record not found.");
+            return null;
+        }
+        Record record = readBlock(location[0]).getRecord(location[1]);
+        if (record == null) {
+            System.out.println("Record not found.");
+            return null;
+        }
+        System.out.println("Record found in Block " + location[0] + ": " + record);
+        return record;
+    }
+
+    // Retrieve a specific record using its physical address (null if it has been deleted)
     public Record retrieveRecordByAddress(PhysicalAddress address) throws IOException {
         Block block = address.getBlock();
+        if (block == null) {
+            block = readBlock(address.getBlockNumber());
+        }
         int index = address.getIndex();
-        if (index < 0 || index >= block.getRecords().size()) {
+        if (index < 0 || index >= Block.RECORDS_PER_BLOCK) {
             throw new IndexOutOfBoundsException("Invalid index for block " + block.getBlockID());
         }
-        return block.getRecords().get(index);
+        return block.getRecord(index);
+    }
+
+    // Delete a record in place: its slot becomes a tombstone and no other record moves
+    public Record deleteRecord(int blockID, int slot) throws IOException {
+        Block block = readBlock(blockID);
+        Record record = block.deleteRecord(slot);
+        if (record != null) {
+            writeBlock(block);
+        }
+        return record;
     }
 
     public void close() throws IOException {
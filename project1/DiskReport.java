@@ -2,9 +2,9 @@ import java.io.IOException;
 
 public class DiskReport {
     public static void main(String[] args) {
-        try {
-            // Initialize disk storage
-            Disk disk = new Disk("disk_storage.dat");
+        try (Snapshot snapshot = SnapshotManager.pin("metadata.dat")) {
+            // Initialize disk storage (the blocks of the published snapshot)
+            Disk disk = snapshot.openDisk();
 
             // Define constants
             int RECORD_SIZE = Record.RECORD_SIZE; // Size of each record in bytes
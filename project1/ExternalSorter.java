@@ -0,0 +1,208 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// External merge sort of (key, record address) pairs for index bulk loading
+// Each pair is packed into one primitive long: the float key, remapped so that its bits
+// sort like the float, in the high 32 bits and the record's RID (blockID * RECORDS_PER_BLOCK
+// + record index) in the low 32 bits. Full buffers are sorted and spilled to temp files as
+// runs; merge() streams a k-way merge of the runs, so memory stays at one buffer however
+// large the table gets.
+class ExternalSorter {
+    public static final int DEFAULT_RUN_SIZE = 1 << 20; // Entries per run (8 MB of longs)
+
+    private final long[] buffer;
+    private int size;
+    private final List<File> runs = new ArrayList<>();
+
+    public ExternalSorter() {
+        this(DEFAULT_RUN_SIZE);
+    }
+
+    public ExternalSorter(int runSize) {
+        this.buffer = new long[runSize];
+        this.size = 0;
+    }
+
+    public void add(float key, int blockID, int index) throws IOException {
+        add(pack(key, blockID * Block.RECORDS_PER_BLOCK + index));
+    }
+
+    // Add an entry packed by the caller; entries come back from merge() in signed long order
+    public void add(long entry) throws IOException {
+        if (size == buffer.length) {
+            spillRun();
+        }
+        buffer[size++] = entry;
+    }
+
+    // Drop everything added so far and keep the buffer, so one sorter serves several index
+    // builds in a row (finish reading the previous merge() first)
+    public void clear() {
+        for (File run : runs) {
+            run.delete(); // Already gone if its merge was read to the end
+        }
+        runs.clear();
+        size = 0;
+    }
+
+    // Flip the bits of negative floats so that signed int order matches float order
+    public static long pack(float key, int rid) {
+        int bits = Float.floatToIntBits(key);
+        bits ^= (bits >> 31) & 0x7fffffff;
+        return ((long) bits << 32) | (rid & 0xffffffffL);
+    }
+
+    public static float unpackKey(long entry) {
+        int bits = (int) (entry >> 32);
+        bits ^= (bits >> 31) & 0x7fffffff;
+        return Float.intBitsToFloat(bits);
+    }
+
+    public static int unpackRid(long entry) {
+        return (int) entry;
+    }
+
+    private void spillRun() throws IOException {
+        Arrays.sort(buffer, 0, size);
+        File run = File.createTempFile("sort_run", ".tmp");
+        run.deleteOnExit();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)))) {
+            for (int i = 0; i < size; i++) {
+                out.writeLong(buffer[i]);
+            }
+        }
+        runs.add(run);
+        size = 0;
+    }
+
+    // Sorted stream over everything added so far
+    public MergeCursor merge() throws IOException {
+        if (runs.isEmpty()) {
+            // Everything fit in one buffer: no need to touch disk
+            Arrays.sort(buffer, 0, size);
+            return new MergeCursor(buffer, size);
+        }
+        if (size > 0) {
+            spillRun();
+        }
+        return new MergeCursor(runs);
+    }
+
+    // Everything added so far as one packed array in no particular order, for callers that
+    // sort in memory instead (see BPlustree.parallel_bulk_loading)
+    public long[] toArray() throws IOException {
+        long total = size;
+        for (File run : runs) {
+            total += run.length() / Long.BYTES;
+        }
+        long[] entries = new long[Math.toIntExact(total)];
+        int position = 0;
+        for (File run : runs) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(run)))) {
+                for (long i = run.length() / Long.BYTES; i > 0; i--) {
+                    entries[position++] = in.readLong();
+                }
+            }
+        }
+        System.arraycopy(buffer, 0, entries, position, size);
+        return entries;
+    }
+
+    // One spilled run, read sequentially
+    private static class RunReader {
+        private final File file;
+        private final DataInputStream in;
+        private long current;
+
+        RunReader(File file) throws IOException {
+            this.file = file;
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        }
+
+        boolean advance() throws IOException {
+            try {
+                current = in.readLong();
+                return true;
+            } catch (EOFException e) {
+                in.close();
+                file.delete();
+                return false;
+            }
+        }
+    }
+
+    // Cursor over the merged output: call next() and then read key(), blockID(), index()
+    static class MergeCursor {
+        private final long[] memory;
+        private final int memorySize;
+        private int memoryPosition;
+        private final PriorityQueue<RunReader> heap;
+        private long current;
+
+        private MergeCursor(long[] memory, int memorySize) {
+            this.memory = memory;
+            this.memorySize = memorySize;
+            this.memoryPosition = 0;
+            this.heap = null;
+        }
+
+        private MergeCursor(List<File> runs) throws IOException {
+            this.memory = null;
+            this.memorySize = 0;
+            this.heap = new PriorityQueue<>(Math.max(1, runs.size()), (a, b) -> Long.compare(a.current, b.current));
+            for (File run : runs) {
+                RunReader reader = new RunReader(run);
+                if (reader.advance()) {
+                    heap.add(reader);
+                }
+            }
+        }
+
+        public boolean next() throws IOException {
+            if (heap == null) {
+                if (memoryPosition == memorySize) {
+                    return false;
+                }
+                current = memory[memoryPosition++];
+                return true;
+            }
+            RunReader smallest = heap.poll();
+            if (smallest == null) {
+                return false;
+            }
+            current = smallest.current;
+            if (smallest.advance()) {
+                heap.add(smallest);
+            }
+            return true;
+        }
+
+        public float key() {
+            return unpackKey(current);
+        }
+
+        // The current entry as added, for entries packed by the caller
+        public long entry() {
+            return current;
+        }
+
+        public int blockID() {
+            return unpackRid(current) / Block.RECORDS_PER_BLOCK;
+        }
+
+        public int index() {
+            return unpackRid(current) % Block.RECORDS_PER_BLOCK;
+        }
+    }
+}
@@ -2,8 +2,8 @@ import java.io.IOException;
 
 public class Fetch_Record_with_Address {
     public static void main(String[] args) {
-        try {
-            Disk disk = new Disk("disk_storage.dat");
+        try (Snapshot snapshot = SnapshotManager.pin("metadata.dat")) {
+            Disk disk = snapshot.openDisk();
 
             // Assuming the address points to block 169 and the record is at index 2
             Block block = disk.readBlock(169);
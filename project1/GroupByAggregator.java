@@ -0,0 +1,73 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// GROUP BY over the block scan path: SELECT groupBy, COUNT(*), SUM(agg1), SUM(agg2), ...
+// The data blocks are split between scan threads; each thread reads raw block bytes into its
+// own buffer and aggregates into its own IntGroupTable, and the partial tables are merged at
+// the end. No Record is created per row.
+class GroupByAggregator {
+    private final RecordColumn groupBy;
+    private final RecordColumn[] aggregates;
+
+    public GroupByAggregator(RecordColumn groupBy, RecordColumn... aggregates) {
+        this.groupBy = groupBy;
+        this.aggregates = aggregates;
+    }
+
+    public IntGroupTable run(Disk disk, int numBlocks, int numThreads) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<IntGroupTable>> partials = new ArrayList<>();
+            int blocksPerThread = (numBlocks + numThreads - 1) / numThreads;
+            for (int t = 0; t < numThreads; t++) {
+                int first = t * blocksPerThread;
+                int last = Math.min(numBlocks, first + blocksPerThread);
+                partials.add(executor.submit(() -> scan(disk, first, last)));
+            }
+
+            IntGroupTable result = new IntGroupTable(aggregates.length);
+            for (Future<IntGroupTable> partial : partials) {
+                result.merge(partial.get());
+            }
+            return result;
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IOException("Group by scan failed", e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Same result on the calling thread, without creating an executor (for callers that are
+    // already one of many worker threads, e.g. WorkloadDriver)
+    public IntGroupTable runSingleThreaded(Disk disk, int numBlocks) throws IOException {
+        return scan(disk, 0, numBlocks);
+    }
+
+    // Aggregate blocks [first, last) into a thread-local table
+    private IntGroupTable scan(Disk disk, int first, int last) throws IOException {
+        IntGroupTable table = new IntGroupTable(aggregates.length);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Block.BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int blockID = first; blockID < last; blockID++) {
+            disk.readBlockBytes(blockID, buffer);
+            for (int slot = 0; slot < Block.RECORDS_PER_BLOCK; slot++) {
+                if (!Block.isSlotUsed(buffer, slot)) {
+                    continue;
+                }
+                int recordOffset = Block.recordOffset(slot);
+                int group = table.slotFor(groupBy.read(buffer, recordOffset));
+                table.addRow(group);
+                for (int a = 0; a < aggregates.length; a++) {
+                    table.addToSum(group, a, aggregates[a].read(buffer, recordOffset));
+                }
+            }
+        }
+        return table;
+    }
+}
@@ -0,0 +1,42 @@
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+
+// Per-team and per-season summaries computed in one pass over the data blocks
+public class GroupByReport {
+    public static void main(String[] args) {
+        int numThreads = Runtime.getRuntime().availableProcessors();
+
+        try (Snapshot snapshot = SnapshotManager.pin("metadata.dat")) {
+            Disk disk = snapshot.openDisk();
+            int numBlocks = snapshot.getDataBlockCount();
+
+            long startTime = System.currentTimeMillis(); // Start time
+            GroupByAggregator byTeam = new GroupByAggregator(RecordColumn.TEAM_ID_HOME,
+                    RecordColumn.PTS_HOME, RecordColumn.HOME_TEAM_WINS);
+            printReport("Team ID", byTeam.run(disk, numBlocks, numThreads));
+
+            GroupByAggregator bySeason = new GroupByAggregator(RecordColumn.SEASON,
+                    RecordColumn.PTS_HOME, RecordColumn.HOME_TEAM_WINS);
+            printReport("Season", bySeason.run(disk, numBlocks, numThreads));
+            long endTime = System.currentTimeMillis(); // End time
+
+            System.out.println("Number of blocks scanned per report: " + numBlocks);
+            System.out.println("Group By Time: " + (endTime - startTime) + " ms");
+            disk.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void printReport(String groupName, IntGroupTable table) {
+        System.out.println("===== Average PTS_home and win rate by " + groupName + " =====");
+        List<Integer> slots = table.slots();
+        slots.sort(Comparator.comparingInt(table::getKey));
+        for (int slot : slots) {
+            System.out.println(String.format("%s %d: games=%d, avg PTS_home=%.2f, home win rate=%.3f",
+                    groupName, table.getKey(slot), table.getCount(slot),
+                    table.getAverage(slot, 0), table.getAverage(slot, 1)));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Open-addressing hash table from an int group key to a row count and per-column sums
+// Everything lives in primitive arrays, so updating a group allocates nothing.
+class IntGroupTable {
+    private static final int INITIAL_CAPACITY = 64; // Power of two
+
+    private final int numAggregates;
+    private int[] keys;
+    private boolean[] used;
+    private long[] counts;
+    private long[] sums; // numAggregates sums per slot, stored side by side
+    private int size;
+
+    public IntGroupTable(int numAggregates) {
+        this.numAggregates = numAggregates;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        used = new boolean[capacity];
+        counts = new long[capacity];
+        sums = new long[capacity * numAggregates];
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Slot of a key, inserting an empty group if it is not there yet
+    public int slotFor(int key) {
+        int mask = keys.length - 1;
+        int slot = (key * 0x9E3779B9) >>> 16 & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            return slotFor(key);
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        size++;
+        return slot;
+    }
+
+    public void addRow(int slot) {
+        counts[slot]++;
+    }
+
+    public void addToSum(int slot, int aggregate, long value) {
+        sums[slot * numAggregates + aggregate] += value;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        long[] oldCounts = counts;
+        long[] oldSums = sums;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slotFor(oldKeys[i]);
+                counts[slot] = oldCounts[i];
+                System.arraycopy(oldSums, i * numAggregates, sums, slot * numAggregates, numAggregates);
+            }
+        }
+    }
+
+    // Fold another partial table (e.g. from another scan thread) into this one
+    public void merge(IntGroupTable other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.used[i]) {
+                int slot = slotFor(other.keys[i]);
+                counts[slot] += other.counts[i];
+                for (int a = 0; a < numAggregates; a++) {
+                    sums[slot * numAggregates + a] += other.sums[i * numAggregates + a];
+                }
+            }
+        }
+    }
+
+    // Occupied slots, for iterating over the groups
+    public List<Integer> slots() {
+        List<Integer> slots = new ArrayList<>(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                slots.add(i);
+            }
+        }
+        return slots;
+    }
+
+    public int getKey(int slot) {
+        return keys[slot];
+    }
+
+    public long getCount(int slot) {
+        return counts[slot];
+    }
+
+    public long getSum(int slot, int aggregate) {
+        return sums[slot * numAggregates + aggregate];
+    }
+
+    public double getAverage(int slot, int aggregate) {
+        return (double) getSum(slot, aggregate) / counts[slot];
+    }
+}
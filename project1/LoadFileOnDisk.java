@@ -1,17 +1,44 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.*;
 
 public class LoadFileOnDisk {
     public static void main(String[] args) throws ClassNotFoundException {
-        Disk disk = null;
+        // --cluster=<column> stores the records in order of that column (e.g. FG_PCT_HOME, GAME_DATE)
+        // --parallel-build builds the B+ tree in memory with BPlustree.parallel_bulk_loading
+        RecordColumn clusterColumn = null;
+        boolean parallelBuild = false;
+        for (String arg : args) {
+            if (arg.equals("--parallel-build")) {
+                parallelBuild = true;
+            }
+            if (arg.startsWith("--cluster=")) {
+                clusterColumn = RecordColumn.valueOf(arg.substring("--cluster=".length()).toUpperCase());
+            }
+        }
+
+        SnapshotWriter writer = null;
+        MappingTable primaryIndex = null;
+        BloomFilterIndex teamFilters = null; // Per-block filters on teamIDHome
         Scanner scanner = null;
 
-        // List to store addresses for the B+ tree
-        ArrayList<Map.Entry<Float, PhysicalAddress>> listOfAddressPairs = new ArrayList<>();
+        // Sorted runs of packed (FG_PCT_home, address) pairs for the B+ tree
+        ExternalSorter sortedAddressPairs = new ExternalSorter();
 
         try {
+            // Queries may be reading the published snapshot, so this load writes a new version
+            // (its own blocks and index files) and publishes it at the end
+            writer = SnapshotWriter.begin("metadata.dat");
+            Snapshot previous = writer.getPrevious();
+            if (clusterColumn != null) {
+                writer.setClusterColumn(clusterColumn);
+            }
+
             // Initialize disk
-            disk = new Disk("disk_storage.dat");
+            Disk disk = writer.getDisk();
+            primaryIndex = writer.openPrimaryIndex();
+            teamFilters = BloomFilterIndex.load(writer.file(SnapshotManager.TEAM_BLOOM_FILE));
 
             // Read games.txt file
             scanner = new Scanner(new File("games.txt"));
@@ -21,60 +48,79 @@ public class LoadFileOnDisk {
                 System.out.println("Skipping header: " + scanner.nextLine());
             }
 
-            int recordID = 1;
-            int blockID = disk.findAvailableBlock();
+            int recordID = Math.max(1, primaryIndex.size()); // Continue after the records already loaded
+            int blockID = previous.getDataBlockCount(); // New records start in a fresh block
             Block block = new Block(blockID);
+            // Clustered mode packs the blocks in key order
+            Iterator<String[]> rows = rowsOf(scanner);
+            if (clusterColumn != null) {
+                rows = sortedRows(rows, clusterColumn);
+            }
 
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine().trim();
-                if (line.isEmpty()) continue;
-
-                String[] data = line.split("\t", -1);
-
-                // Skip rows with missing fields
-                if (data.length != 9 || Arrays.stream(data).anyMatch(String::isEmpty)) {
-                    System.out.println("Skipping malformed row: " + Arrays.toString(data));
-                    continue;
-                }
+            while (rows.hasNext()) {
+                String[] data = rows.next();
 
                 try {
-                    Record record = new Record(
-                            recordID++, data[0],
-                            Integer.parseInt(data[1]), Integer.parseInt(data[2]),
-                            Float.parseFloat(data[3]), Float.parseFloat(data[4]),
-                            Float.parseFloat(data[5]), Integer.parseInt(data[6]),
-                            Integer.parseInt(data[7]), Integer.parseInt(data[8])
-                    );
+                    Record record = toRecord(recordID++, data);
 
-                    Float fgPctHome = Float.parseFloat(data[3]);
+                    // Key on the stored fixed-point FG%, as every FG% index does
+                    float fgPctHome = RecordColumn.fixedPointKey(record.getFgPctHome());
 
                     if (!block.isFull()) {
                         PhysicalAddress address = block.addRecord(record);
-                        listOfAddressPairs.add(new AbstractMap.SimpleEntry<>(fgPctHome, address));
+                        sortedAddressPairs.add(fgPctHome, address.getBlockNumber(), address.getIndex());
+                        primaryIndex.addMapping(record.getRecordID(), address);
+                        teamFilters.add(address.getBlockNumber(), record.getTeamIDHome());
                     } else {
                         disk.writeBlock(block);
-                        blockID = disk.findAvailableBlock();
+                        blockID++;
                         block = new Block(blockID);
                         PhysicalAddress address = block.addRecord(record);
-                        listOfAddressPairs.add(new AbstractMap.SimpleEntry<>(fgPctHome, address));
+                        sortedAddressPairs.add(fgPctHome, address.getBlockNumber(), address.getIndex());
+                        primaryIndex.addMapping(record.getRecordID(), address);
+                        teamFilters.add(address.getBlockNumber(), record.getTeamIDHome());
                     }
 
                 } catch (NumberFormatException ignored) {}
             }
 
-            Collections.sort(listOfAddressPairs, Comparator.comparing(Map.Entry::getKey));
+            // Flush the last, partially filled block so every indexed record is on disk
+            if (block.getRecordCount() > 0) {
+                disk.writeBlock(block);
+            }
+            int dataBlockCount = block.getRecordCount() > 0 ? blockID + 1 : blockID;
+
+            teamFilters.save(writer.file(SnapshotManager.TEAM_BLOOM_FILE));
+
+            // Index the previous snapshot's records straight from its blocks (streamed into the
+            // sorter, so the old tree is never read back)
+            ByteBuffer buffer = ByteBuffer.allocate(Block.BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (int oldBlock = 0; oldBlock < previous.getDataBlockCount(); oldBlock++) {
+                disk.readBlockBytes(oldBlock, buffer);
+                for (int slot = 0; slot < Block.RECORDS_PER_BLOCK; slot++) {
+                    if (Block.isSlotUsed(buffer, slot)) {
+                        int fgPct = RecordColumn.FG_PCT_HOME.read(buffer, Block.recordOffset(slot));
+                        sortedAddressPairs.add(RecordColumn.fixedPointKey(fgPct), oldBlock, slot);
+                    }
+                }
+            }
 
+            // k-way merge of the sorted runs streams straight into the leaf level
             BPlustree tree = new BPlustree(7);
-            tree.bulk_loading(listOfAddressPairs);
-            tree.serializeTree("bplustree.dat");
-        
-            
+            if (parallelBuild) {
+                long buildStart = System.currentTimeMillis();
+                tree.parallel_bulk_loading(sortedAddressPairs.toArray());
+                System.out.println("Parallel B+ tree build: " + (System.currentTimeMillis() - buildStart) + " ms");
+            } else {
+                tree.bulk_loading(sortedAddressPairs.merge());
+            }
+
             System.out.println("=========================================================");
             System.out.println("Task 1");
             System.out.println("Size of a record: " + Record.RECORD_SIZE + " bytes");
             System.out.println("Total number of records: " + recordID);
             System.out.println("Number of records per block: " + Block.RECORDS_PER_BLOCK);
-            System.out.println("Total number of blocks used: " + (disk.getBlockCounter()));
+            System.out.println("Total number of blocks used: " + dataBlockCount);
 
             System.out.println("=========================================================");
             System.out.println("Task 2");
@@ -83,35 +129,122 @@ public class LoadFileOnDisk {
             System.out.println("root : " + tree.getRoot());
             System.out.println("root keys : " + tree.getRoot().keys);
 
-            // Store tree into disk
-            File treeFile = new File("bplustree.dat");
-            byte[] treeBytes = new byte[(int) treeFile.length()];
-            FileInputStream treeFileIn = new FileInputStream(treeFile);
-            treeFileIn.read(treeBytes);
-            treeFileIn.close();
-
-            RandomAccessFile raf = new RandomAccessFile("disk_storage.dat", "rw");
-            long treeOffset = raf.length();
-            raf.seek(treeOffset);
-            raf.write(treeBytes);
-            raf.close();
-
-            long treeLength = treeBytes.length;
-
-            try (DataOutputStream metaOut = new DataOutputStream(new FileOutputStream("metadata.dat"))) {
-                metaOut.writeLong(treeOffset);
-                metaOut.writeLong(treeLength);
-            }
-
-            System.out.println("B+ tree stored at offset: " + treeOffset + " with length: " + treeLength);
+            // Store tree into disk and publish the new snapshot (blocks + tree + indexes) atomically
+            writer.publish(tree, dataBlockCount);
 
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
             try {
                 if (scanner != null) scanner.close();
-                if (disk != null) disk.close();
+                if (primaryIndex != null) primaryIndex.close();
+                if (writer != null) writer.close();
             } catch (IOException ignored) {}
         }
     }
+
+    // The rows in order of a column, for --cluster
+    // Each row's key is computed once: the rows are spilled to a temp file and (key, file offset)
+    // pairs packed into longs are sorted by ExternalSorter, so memory stays at the sorter's buffer
+    // however big the input is. Equal keys keep their file order (the offset breaks the tie).
+    static Iterator<String[]> sortedRows(Iterator<String[]> rows, RecordColumn key) throws IOException {
+        File spill = File.createTempFile("cluster_rows", ".tmp");
+        spill.deleteOnExit();
+        ExternalSorter sorter = new ExternalSorter();
+        int count = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spill)))) {
+            while (rows.hasNext()) {
+                String[] data = rows.next();
+                if (out.size() == Integer.MAX_VALUE) {
+                    throw new IOException("Too many rows to cluster in one load");
+                }
+                sorter.add(((long) key.get(toRecord(0, data)) << 32) | out.size());
+                out.writeUTF(String.join("\t", data));
+                count++;
+            }
+        }
+        System.out.println("Clustering " + count + " records on " + key);
+
+        ExternalSorter.MergeCursor cursor = sorter.merge();
+        RandomAccessFile in = new RandomAccessFile(spill, "r");
+        return new Iterator<String[]>() {
+            private String[] next = advance();
+
+            private String[] advance() {
+                try {
+                    if (!cursor.next()) {
+                        in.close();
+                        spill.delete();
+                        return null;
+                    }
+                    in.seek((int) cursor.entry()); // Low 32 bits: the row's offset in the spill file
+                    return in.readUTF().split("\t", -1);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public String[] next() {
+                String[] data = next;
+                next = advance();
+                return data;
+            }
+        };
+    }
+
+    // Well-formed rows of games.txt, split into their 9 fields
+    static Iterator<String[]> rowsOf(Scanner scanner) {
+        return new Iterator<String[]>() {
+            private String[] next = advance();
+
+            private String[] advance() {
+                while (scanner.hasNextLine()) {
+                    String line = scanner.nextLine().trim();
+                    if (line.isEmpty()) continue;
+
+                    String[] data = line.split("\t", -1);
+
+                    // Skip rows with missing fields
+                    if (data.length != 9 || Arrays.stream(data).anyMatch(String::isEmpty)) {
+                        System.out.println("Skipping malformed row: " + Arrays.toString(data));
+                        continue;
+                    }
+
+                    try {
+                        toRecord(0, data); // Skip rows with unparseable numbers
+                        return data;
+                    } catch (NumberFormatException ignored) {}
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public String[] next() {
+                String[] data = next;
+                next = advance();
+                return data;
+            }
+        };
+    }
+
+    static Record toRecord(int recordID, String[] data) {
+        return new Record(
+                recordID, data[0],
+                Integer.parseInt(data[1]), Integer.parseInt(data[2]),
+                Float.parseFloat(data[3]), Float.parseFloat(data[4]),
+                Float.parseFloat(data[5]), Integer.parseInt(data[6]),
+                Integer.parseInt(data[7]), Integer.parseInt(data[8])
+        );
+    }
 }
@@ -1,27 +1,83 @@
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
+// Persistent primary index: Record ID → (Block ID, record index)
+// Record IDs are handed out sequentially by the loader, so the index is a dense
+// direct-mapped array on disk: the entry for record i lives at i * ENTRY_SIZE.
+// A point lookup is one probe into this file followed by one Disk.readBlock.
 class MappingTable {
-    private Map<Integer, PhysicalAddress> recordMap; // Maps Record ID → Physical Address
+    public static final int ENTRY_SIZE = 8; // 4 bytes Block ID + 4 bytes record index
+    private static final int EMPTY = -1; // Marks a record ID with no mapping
 
-    public MappingTable() {
-        recordMap = new HashMap<>();
+    private RandomAccessFile indexFile;
+
+    public MappingTable(String filePath) throws IOException {
+        indexFile = new RandomAccessFile(filePath, "rw");
+    }
+
+    // Number of entries the index currently covers (highest record ID + 1)
+    public synchronized int size() throws IOException {
+        return (int) (indexFile.length() / ENTRY_SIZE);
+    }
+
+    public synchronized void addMapping(int recordID, PhysicalAddress address) throws IOException {
+        writeEntry(recordID, address.getBlockNumber(), address.getIndex());
+    }
+
+    // Returns {blockID, recordIndex}, or null if the record ID is not mapped
+    public synchronized int[] getLocation(int recordID) throws IOException {
+        if (recordID < 0 || recordID >= size()) {
+            return null;
+        }
+        byte[] entry = new byte[ENTRY_SIZE];
+        indexFile.seek((long) recordID * ENTRY_SIZE);
+        indexFile.readFully(entry);
+        ByteBuffer buffer = ByteBuffer.wrap(entry).order(ByteOrder.LITTLE_ENDIAN);
+        int blockID = buffer.getInt();
+        int recordIndex = buffer.getInt();
+        if (blockID == EMPTY) {
+            return null;
+        }
+        return new int[] { blockID, recordIndex };
     }
 
-    public void addMapping(int recordID, PhysicalAddress address) {
-        recordMap.put(recordID, address);
+    public synchronized void removeMapping(int recordID) throws IOException {
+        if (recordID >= 0 && recordID < size()) {
+            writeEntry(recordID, EMPTY, EMPTY);
+        }
     }
 
-    public PhysicalAddress getAddress(int recordID) {
-        return recordMap.get(recordID);
+    private void writeEntry(int recordID, int blockID, int recordIndex) throws IOException {
+        // Fill any gap with empty entries so skipped IDs do not read as Block 0, index 0
+        int entries = size();
+        if (recordID > entries) {
+            ByteBuffer gap = ByteBuffer.allocate((recordID - entries) * ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (gap.hasRemaining()) {
+                gap.putInt(EMPTY);
+            }
+            indexFile.seek((long) entries * ENTRY_SIZE);
+            indexFile.write(gap.array());
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(blockID);
+        buffer.putInt(recordIndex);
+        indexFile.seek((long) recordID * ENTRY_SIZE);
+        indexFile.write(buffer.array());
     }
 
-    public void removeMapping(int recordID) {
-        recordMap.remove(recordID);
+    public void close() throws IOException {
+        indexFile.close();
     }
 
     @Override
     public String toString() {
-        return recordMap.toString();
+        try {
+            return "MappingTable with " + size() + " entries";
+        } catch (IOException e) {
+            return "MappingTable (unreadable)";
+        }
     }
 }
@@ -0,0 +1,32 @@
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+class Node implements Serializable{
+    // True for leaf nodes, False for internal nodes
+    boolean isLeaf; 
+
+    // The keys stored in this node
+    List<Float> keys; 
+
+    List<List<PhysicalAddress>> data_pointers; 
+
+    // Children nodes (for internal nodes)
+    List<Node> children; 
+
+    // Link to the next leaf node
+    Node next; 
+
+    // Link to the previous leaf node (for descending scans)
+    Node prev;
+
+    // Constructor to initialize a node
+    public Node(boolean isLeaf) {
+        this.isLeaf = isLeaf;
+        this.keys = new ArrayList<>();
+        this.data_pointers = new ArrayList<>();
+        this.children = new ArrayList<>();
+        this.next = null;
+        this.prev = null;
+    }
+}
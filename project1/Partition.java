@@ -0,0 +1,50 @@
+// One season of games: its own data file and its own B+ tree on FG_PCT_home
+class Partition {
+    private final int season; // Season start year, e.g. 2022 for 2022-23
+    private final int minDate; // YYYYMMDD of the first and last game actually stored
+    private final int maxDate;
+    private final int numBlocks;
+    private final int numRecords;
+
+    public Partition(int season, int minDate, int maxDate, int numBlocks, int numRecords) {
+        this.season = season;
+        this.minDate = minDate;
+        this.maxDate = maxDate;
+        this.numBlocks = numBlocks;
+        this.numRecords = numRecords;
+    }
+
+    public int getSeason() {
+        return season;
+    }
+
+    public int getMinDate() {
+        return minDate;
+    }
+
+    public int getMaxDate() {
+        return maxDate;
+    }
+
+    public int getNumBlocks() {
+        return numBlocks;
+    }
+
+    public int getNumRecords() {
+        return numRecords;
+    }
+
+    public String getDataFile() {
+        return PartitionMap.dataFile(season);
+    }
+
+    public String getTreeFile() {
+        return PartitionMap.treeFile(season);
+    }
+
+    @Override
+    public String toString() {
+        return "Season " + season + " (" + minDate + ".." + maxDate + ", " + numRecords + " records, "
+                + numBlocks + " blocks)";
+    }
+}
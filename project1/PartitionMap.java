@@ -0,0 +1,73 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Partition map of the season-partitioned table written by PartitionedLoader
+// The planner prunes with it: a query on gameDate only opens the partitions whose
+// [minDate, maxDate] overlaps the predicate, so its cost follows those seasons' size.
+class PartitionMap {
+    public static final String DIRECTORY = "partitions";
+    public static final String MAP_FILE = DIRECTORY + "/partition_map.dat";
+
+    private final List<Partition> partitions; // In season order
+
+    public PartitionMap(List<Partition> partitions) {
+        this.partitions = partitions;
+    }
+
+    public static String dataFile(int season) {
+        return DIRECTORY + "/season_" + season + ".dat";
+    }
+
+    public static String treeFile(int season) {
+        return DIRECTORY + "/season_" + season + "_bplustree.dat";
+    }
+
+    public List<Partition> getPartitions() {
+        return partitions;
+    }
+
+    // Partitions that may hold games dated within [fromDate, toDate] (YYYYMMDD)
+    public List<Partition> prune(int fromDate, int toDate) {
+        List<Partition> survivors = new ArrayList<>();
+        for (Partition partition : partitions) {
+            if (partition.getMaxDate() >= fromDate && partition.getMinDate() <= toDate) {
+                survivors.add(partition);
+            }
+        }
+        return survivors;
+    }
+
+    public void save() throws IOException {
+        File tmp = new File(MAP_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(partitions.size());
+            for (Partition partition : partitions) {
+                out.writeInt(partition.getSeason());
+                out.writeInt(partition.getMinDate());
+                out.writeInt(partition.getMaxDate());
+                out.writeInt(partition.getNumBlocks());
+                out.writeInt(partition.getNumRecords());
+            }
+        }
+        SnapshotManager.replaceAtomically(tmp, MAP_FILE);
+    }
+
+    public static PartitionMap load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(MAP_FILE)))) {
+            int count = in.readInt();
+            List<Partition> partitions = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                partitions.add(new Partition(in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+            }
+            return new PartitionMap(partitions);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.TreeMap;
+
+// Loads games.txt into one data file and one local B+ tree (on FG_PCT_home) per season,
+// plus the partition map used for pruning. Rebuilds the partitioned copy from scratch.
+// The copy is rebuild-only: loads, deletes and compaction of the main table do not update it,
+// so re-run PartitionedLoader after changing the table.
+public class PartitionedLoader {
+    public static void main(String[] args) throws ClassNotFoundException {
+        Scanner scanner = null;
+        try {
+            new File(PartitionMap.DIRECTORY).mkdirs();
+            scanner = new Scanner(new File("games.txt"));
+
+            // Skip the first line (header)
+            if (scanner.hasNextLine()) {
+                System.out.println("Skipping header: " + scanner.nextLine());
+            }
+
+            // Group the rows by season; record IDs follow file order as in LoadFileOnDisk
+            TreeMap<Integer, List<Record>> seasonRecords = new TreeMap<>();
+            int recordID = 1;
+            Iterator<String[]> rows = LoadFileOnDisk.rowsOf(scanner);
+            while (rows.hasNext()) {
+                String[] data = rows.next();
+                Record record = LoadFileOnDisk.toRecord(recordID++, data);
+                int season = RecordColumn.SEASON.get(record);
+                seasonRecords.computeIfAbsent(season, s -> new ArrayList<>()).add(record);
+            }
+
+            // One sort buffer, reused by every partition's tree build
+            ExternalSorter sortedAddressPairs = new ExternalSorter();
+            List<Partition> partitions = new ArrayList<>();
+            for (Map.Entry<Integer, List<Record>> entry : seasonRecords.entrySet()) {
+                sortedAddressPairs.clear();
+                partitions.add(loadPartition(entry.getKey(), entry.getValue(), sortedAddressPairs));
+            }
+            new PartitionMap(partitions).save();
+
+            System.out.println("=========================================================");
+            for (Partition partition : partitions) {
+                System.out.println(partition);
+            }
+            System.out.println("Number of partitions: " + partitions.size());
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (scanner != null) scanner.close();
+        }
+    }
+
+    private static Partition loadPartition(int season, List<Record> records, ExternalSorter sortedAddressPairs)
+            throws IOException {
+        new File(PartitionMap.dataFile(season)).delete(); // Start from an empty file
+
+        Disk disk = new Disk(PartitionMap.dataFile(season));
+        int minDate = Integer.MAX_VALUE;
+        int maxDate = Integer.MIN_VALUE;
+
+        int blockID = 0;
+        Block block = new Block(blockID);
+        for (int i = 0; i < records.size(); i++) {
+            Record record = records.get(i);
+            if (block.isFull()) {
+                disk.writeBlock(block);
+                blockID++;
+                block = new Block(blockID);
+            }
+            PhysicalAddress address = block.addRecord(record);
+            sortedAddressPairs.add(RecordColumn.fixedPointKey(record.getFgPctHome()), address.getBlockNumber(), address.getIndex());
+            minDate = Math.min(minDate, record.getGameDate());
+            maxDate = Math.max(maxDate, record.getGameDate());
+        }
+        disk.writeBlock(block);
+        disk.close();
+
+        // Local index over this partition only
+        BPlustree tree = new BPlustree(7);
+        tree.bulk_loading(sortedAddressPairs.merge());
+        tree.serializeTree(PartitionMap.treeFile(season));
+
+        return new Partition(season, minDate, maxDate, blockID + 1, records.size());
+    }
+}
@@ -0,0 +1,84 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+// FG_PCT_home range query restricted to a gameDate range, on the season-partitioned table
+// e.g. java -cp bin PartitionedQuery 20221001 20230930 0.6 0.9
+// Partitions outside the date range are never opened. A partition inside the range is
+// answered by its local B+ tree; one that only overlaps it is scanned with both predicates.
+public class PartitionedQuery {
+    public static void main(String[] args) {
+        int fromDate = args.length > 1 ? Integer.parseInt(args[0]) : 20221001;
+        int toDate = args.length > 1 ? Integer.parseInt(args[1]) : 20230930;
+        double lower = args.length > 3 ? Double.parseDouble(args[2]) : 0.600;
+        double higher = args.length > 3 ? Double.parseDouble(args[3]) : 0.900;
+
+        try {
+            long startTime = System.currentTimeMillis(); // Start time
+            PartitionMap partitionMap = PartitionMap.load();
+            List<Partition> survivors = partitionMap.prune(fromDate, toDate);
+
+            int blocksSkipped = 0;
+            for (Partition partition : partitionMap.getPartitions()) {
+                if (!survivors.contains(partition)) {
+                    blocksSkipped += partition.getNumBlocks();
+                }
+            }
+
+            for (Partition partition : survivors) {
+                Disk disk = new Disk(partition.getDataFile());
+                if (partition.getMinDate() >= fromDate && partition.getMaxDate() <= toDate) {
+                    System.out.println("--- " + partition + ": local B+ tree ---");
+                    BPlustree tree = BPlustree.deserializeTree(partition.getTreeFile());
+                    tree.search_range(lower, higher, tree.getRoot(), disk);
+                } else {
+                    System.out.println("--- " + partition + ": partial, scanning ---");
+                    scanPartition(partition, disk, fromDate, toDate, lower, higher);
+                }
+                disk.close();
+            }
+            long endTime = System.currentTimeMillis(); // End time
+
+            System.out.println("Partitions read: " + survivors.size() + " of " + partitionMap.getPartitions().size()
+                    + " (" + blocksSkipped + " blocks pruned)");
+            System.out.println("Partitioned Query Time: " + (endTime - startTime) + " ms");
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void scanPartition(Partition partition, Disk disk, int fromDate, int toDate,
+            double lower, double higher) throws IOException {
+        // Same bounds on the stored fixed-point value as the local B+ trees use
+        int lowerKey = RecordColumn.fixedPointAtLeast(lower);
+        int higherKey = RecordColumn.fixedPointAtMost(higher);
+        float sum = 0;
+        int count = 0;
+
+        ByteBuffer buffer = ByteBuffer.allocate(Block.BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int blockID = 0; blockID < partition.getNumBlocks(); blockID++) {
+            disk.readBlockBytes(blockID, buffer);
+            for (int slot = 0; slot < Block.RECORDS_PER_BLOCK; slot++) {
+                if (!Block.isSlotUsed(buffer, slot)) {
+                    continue;
+                }
+                int offset = Block.recordOffset(slot);
+                int gameDate = RecordColumn.GAME_DATE.read(buffer, offset);
+                int fgPct = RecordColumn.FG_PCT_HOME.read(buffer, offset);
+                if (gameDate >= fromDate && gameDate <= toDate && fgPct >= lowerKey && fgPct <= higherKey) {
+                    sum += fgPct;
+                    count += 1;
+                }
+            }
+        }
+
+        if (count > 0) {
+            System.out.println("Average: " + (sum / count / 1000));
+            System.out.println("Total records found: " + count);
+        } else {
+            System.out.println("No records found in the given range.");
+        }
+        System.out.println("Number of blocks accessed: " + partition.getNumBlocks());
+    }
+}
@@ -11,6 +11,13 @@ class PhysicalAddress implements Serializable{
         this.recordindex = recordindex;
     }
 
+    // Address known only by Block ID (e.g. from a sorted run); the block is read from disk on access
+    public PhysicalAddress(int blockID, int recordindex) {
+        this.block = null;
+        this.blockID = blockID;
+        this.recordindex = recordindex;
+    }
+
     public Block getBlock() {
         return block;
     }
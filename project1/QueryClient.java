@@ -0,0 +1,77 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Client for QueryServer
+// queryBatch() pipelines many requests in one write and then reads the responses,
+// so a batch costs one round trip instead of one per query.
+public class QueryClient implements AutoCloseable {
+    private final Socket socket;
+    private final BufferedReader in;
+    private final BufferedWriter out;
+
+    public QueryClient(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    public String query(String request) throws IOException {
+        out.write(request);
+        out.newLine();
+        out.flush();
+        return in.readLine();
+    }
+
+    public List<String> queryBatch(List<String> requests) throws IOException {
+        // Send at most as many requests as the server keeps in flight before reading their
+        // answers, so neither side blocks writing to a peer that is not reading
+        List<String> responses = new ArrayList<>();
+        for (int start = 0; start < requests.size(); start += QueryServer.MAX_PIPELINED) {
+            int end = Math.min(requests.size(), start + QueryServer.MAX_PIPELINED);
+            for (String request : requests.subList(start, end)) {
+                out.write(request);
+                out.newLine();
+            }
+            out.flush();
+            for (int i = start; i < end; i++) {
+                responses.add(in.readLine());
+            }
+        }
+        return responses;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.write("QUIT");
+        out.newLine();
+        out.flush();
+        socket.close();
+    }
+
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : QueryServer.DEFAULT_PORT;
+        try (QueryClient client = new QueryClient("localhost", port)) {
+            System.out.println("POINT 1 -> " + client.query("POINT 1"));
+            System.out.println("AVG 0.6 0.9 -> " + client.query("AVG 0.6 0.9"));
+
+            // One batch of FG% buckets: 0.3-0.4, 0.4-0.5, ...
+            List<String> buckets = new ArrayList<>();
+            for (int i = 3; i < 9; i++) {
+                buckets.add("AVG " + (i / 10.0) + " " + ((i + 1) / 10.0));
+            }
+            List<String> responses = client.queryBatch(buckets);
+            for (int i = 0; i < buckets.size(); i++) {
+                System.out.println(buckets.get(i) + " -> " + responses.get(i));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
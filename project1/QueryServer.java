@@ -0,0 +1,358 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Long-running query service over a line-based TCP protocol
+// The server pins one snapshot and opens its static search tree, primary index and buffer
+// pool once, so queries no longer pay JVM startup and index load each time. A DELETE is a
+// snapshot write: it publishes a new version and the server then moves to it. Versions
+// published by other processes (loads, DeleteRecord, BlockCompactor) are picked up within
+// REFRESH_INTERVAL_MS. A request reads the state it started on without taking a lock, so it
+// always sees one complete version; a replaced version is unpinned when its last request ends.
+//
+// Requests (one per line)              Responses (one line each, in request order)
+//   POINT <recordID>                      OK <record>            | ERR <message>
+//   RANGE <lower> <higher>                OK <count> <id,id,...>
+//   AVG <lower> <higher>                  OK <count> <average FG_PCT_home>
+//   DELETE <recordID>                     OK deleted             | ERR <message>
+//   QUIT                                  (closes the connection)
+//
+// Clients may pipeline many requests before reading (see QueryClient.queryBatch).
+// RANGE and AVG results are cached; a DELETE drops every cached range containing the
+// deleted record's key.
+public class QueryServer {
+    public static final int DEFAULT_PORT = 5433;
+    public static final int MAX_PIPELINED = 1024; // Requests in flight per connection before reads pause
+    public static final long REFRESH_INTERVAL_MS = 1000; // How often metadata.dat is checked for a new version
+    private static final String FG_PCT_INDEX = "fg_pct_home";
+
+    // Everything a request reads, all from one pinned snapshot
+    private static class ServingState {
+        final Snapshot snapshot;
+        final StaticSearchTree tree;
+        final MappingTable primaryIndex;
+        final BufferPool bufferPool;
+        private final AtomicInteger users = new AtomicInteger(1); // Requests reading it, plus 1 while served
+
+        ServingState(Snapshot snapshot) throws IOException {
+            this.snapshot = snapshot;
+            this.tree = StaticSearchTree.open(snapshot.file(SnapshotManager.STATIC_TREE_FILE));
+            this.primaryIndex = snapshot.openPrimaryIndex();
+            this.bufferPool = new BufferPool(snapshot.openDisk());
+        }
+
+        // Fails once the state was replaced and its last request has left it
+        boolean acquire() {
+            int count;
+            do {
+                count = users.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!users.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        void release() throws IOException {
+            if (users.decrementAndGet() == 0) {
+                close();
+            }
+        }
+
+        private void close() throws IOException {
+            primaryIndex.close();
+            bufferPool.getDisk().close();
+            snapshot.close();
+        }
+    }
+
+    private final String metadataPath;
+    private final AtomicReference<ServingState> state;
+    private final ExecutorService executor;
+    private ScheduledExecutorService refresher;
+    private final RangeQueryCache<String> cache = new RangeQueryCache<>();
+
+    public QueryServer(String metadataPath) throws IOException {
+        this.metadataPath = metadataPath;
+        this.state = new AtomicReference<>(new ServingState(SnapshotManager.pin(metadataPath)));
+        this.executor = newRequestExecutor();
+    }
+
+    // One virtual thread per task on Java 21+, pooled platform threads on older runtimes
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        try {
+            new QueryServer("metadata.dat").serve(port);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void serve(int port) throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(port)) {
+            System.out.println("Query server listening on port " + port + " (" + state.get().snapshot + ")");
+            refresher = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "snapshot-refresher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleWithFixedDelay(this::refresh, REFRESH_INTERVAL_MS, REFRESH_INTERVAL_MS,
+                    TimeUnit.MILLISECONDS);
+            while (true) {
+                Socket socket = serverSocket.accept();
+                executor.submit(() -> handleConnection(socket));
+            }
+        }
+    }
+
+    // Each request line runs as its own task; responses are written back in request order
+    private void handleConnection(Socket socket) {
+        // Bounded: a client that pipelines faster than we answer is not read until responses drain
+        BlockingQueue<Future<String>> pending = new LinkedBlockingQueue<>(MAX_PIPELINED);
+        Future<String> endOfStream = CompletableFuture.completedFuture(null); // Marks the last request
+
+        try (Socket s = socket;
+                BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                BufferedWriter out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+
+            Future<?> writer = executor.submit(() -> {
+                try {
+                    while (true) {
+                        Future<String> response = pending.take();
+                        if (response == endOfStream) {
+                            break;
+                        }
+                        String line;
+                        try {
+                            line = response.get();
+                        } catch (ExecutionException e) {
+                            line = "ERR " + e.getCause(); // Keep answering the rest of the pipeline
+                        }
+                        out.write(line);
+                        out.newLine();
+                        if (pending.isEmpty()) {
+                            out.flush(); // Flush once per pipelined batch
+                        }
+                    }
+                    out.flush();
+                } catch (IOException | InterruptedException e) {
+                    System.err.println("Error writing response: " + e.getMessage());
+                }
+            });
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String request = line.trim();
+                if (request.equalsIgnoreCase("QUIT")) {
+                    break;
+                }
+                if (!request.isEmpty()) {
+                    pending.put(executor.submit(() -> execute(request)));
+                }
+            }
+            pending.put(endOfStream);
+            writer.get();
+        } catch (IOException | InterruptedException | ExecutionException e) {
+            System.err.println("Connection error: " + e.getMessage());
+        }
+    }
+
+    public String execute(String request) {
+        String[] parts = request.split("\\s+");
+        try {
+            switch (parts[0].toUpperCase()) {
+                case "POINT":
+                    return point(Integer.parseInt(parts[1]));
+                case "RANGE":
+                    return range(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]), false);
+                case "AVG":
+                    return range(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]), true);
+                case "DELETE":
+                    return delete(Integer.parseInt(parts[1]));
+                default:
+                    return "ERR unknown command " + parts[0];
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            return "ERR malformed request: " + request;
+        } catch (IOException e) {
+            return "ERR " + e.getMessage();
+        } catch (RuntimeException e) {
+            return "ERR internal error: " + e; // One bad request must not stall the connection
+        }
+    }
+
+    // The served state, held until release() so a repin cannot close it under the request
+    private ServingState acquireState() {
+        while (true) {
+            ServingState current = state.get();
+            if (current.acquire()) {
+                return current;
+            }
+            // Replaced and closed since get(), so state already holds its successor
+        }
+    }
+
+    private String point(int recordID) throws IOException {
+        ServingState current = acquireState();
+        try {
+            int[] location = current.primaryIndex.getLocation(recordID);
+            if (location == null) {
+                return "ERR record " + recordID + " not found";
+            }
+            Record record = current.bufferPool.getBlock(location[0]).getRecord(location[1]);
+            if (record == null) {
+                return "ERR record " + recordID + " not found";
+            }
+            return "OK " + record;
+        } finally {
+            current.release();
+        }
+    }
+
+    // Publish a version without the record, then serve that version
+    private String delete(int recordID) throws IOException {
+        Record record;
+        boolean fromServedVersion;
+        try (SnapshotWriter writer = SnapshotWriter.begin(metadataPath)) {
+            MappingTable primaryIndex = writer.openPrimaryIndex();
+            int[] location = primaryIndex.getLocation(recordID);
+            record = location == null ? null : writer.getDisk().deleteRecord(location[0], location[1]);
+            if (record != null) {
+                primaryIndex.removeMapping(recordID);
+            }
+            primaryIndex.close();
+            if (record == null) {
+                return "ERR record " + recordID + " not found";
+            }
+            BPlustree tree = writer.readTree();
+            tree.delete(record.getFgPctHome(), location[0], location[1]);
+            writer.publish(tree, writer.getPrevious().getDataBlockCount());
+            fromServedVersion = writer.getPrevious().getVersion() == servedVersion();
+        } catch (ClassNotFoundException e) {
+            return "ERR " + e.getMessage();
+        }
+        repin();
+
+        if (fromServedVersion) {
+            cache.invalidate(FG_PCT_INDEX, record.getFgPctHome() / 1000.0);
+        } else {
+            // Another process published in between, so any cached range may have changed
+            cache.invalidate(FG_PCT_INDEX, -Double.MAX_VALUE, Double.MAX_VALUE);
+        }
+        return "OK deleted";
+    }
+
+    private long servedVersion() {
+        return state.get().snapshot.getVersion();
+    }
+
+    // Serve the published snapshot if it is newer than the served one; returns whether it moved
+    // Requests already reading the old state finish on it; the last one unpins it.
+    private synchronized boolean repin() throws IOException {
+        Snapshot published = SnapshotManager.pin(metadataPath);
+        if (published.getVersion() == servedVersion()) {
+            published.close();
+            return false;
+        }
+        ServingState next;
+        try {
+            next = new ServingState(published);
+        } catch (IOException e) {
+            published.close();
+            throw e;
+        }
+        state.getAndSet(next).release();
+        return true;
+    }
+
+    // Pick up a version another process published; nothing says which keys it changed
+    private void refresh() {
+        try {
+            if (repin()) {
+                cache.invalidate(FG_PCT_INDEX, -Double.MAX_VALUE, Double.MAX_VALUE);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not move to the published snapshot: " + e.getMessage());
+        }
+    }
+
+    private String range(double lower, double higher, boolean averageOnly) throws IOException {
+        String aggregate = averageOnly ? "AVG" : "RANGE";
+        // Cache on the stored values the range covers, so invalidate() tests keys the way the index does
+        double lowKey = RecordColumn.fixedPointAtLeast(lower) / 1000.0;
+        double highKey = RecordColumn.fixedPointAtMost(higher) / 1000.0;
+        long generation = cache.getGeneration(); // Read before evaluating, see RangeQueryCache.put
+        String cached = cache.get(FG_PCT_INDEX, lowKey, highKey, aggregate);
+        if (cached != null) {
+            return cached;
+        }
+        String result = evaluateRange(lower, higher, averageOnly);
+        cache.put(FG_PCT_INDEX, lowKey, highKey, aggregate, result, generation);
+        return result;
+    }
+
+    private String evaluateRange(double lower, double higher, boolean averageOnly) throws IOException {
+        ServingState current = acquireState();
+        try {
+            return evaluateRange(current, lower, higher, averageOnly);
+        } finally {
+            current.release();
+        }
+    }
+
+    private static String evaluateRange(ServingState state, double lower, double higher, boolean averageOnly)
+            throws IOException {
+        StaticSearchTree tree = state.tree;
+        float sum = 0;
+        int count = 0;
+        StringBuilder ids = new StringBuilder();
+
+        int end = tree.rangeEnd(higher);
+        for (int rank = tree.rangeStart(lower); rank < end; rank++) {
+            for (int rid = tree.getPostingStart(rank); rid < tree.getPostingStart(rank + 1); rid++) {
+                Block block = state.bufferPool.getBlock(tree.getRidBlock(rid));
+                Record record = block.getRecord(tree.getRidIndex(rid));
+                if (record == null) {
+                    continue; // Deleted since the index was built
+                }
+                sum += record.getFgPctHome();
+                count++;
+                if (!averageOnly) {
+                    if (ids.length() > 0) {
+                        ids.append(',');
+                    }
+                    ids.append(record.getRecordID());
+                }
+            }
+        }
+
+        if (averageOnly) {
+            return "OK " + count + " " + (count > 0 ? sum / count / 1000 : 0);
+        }
+        return "OK " + count + " " + ids;
+    }
+}
@@ -0,0 +1,115 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+// Bounded LRU cache of range-query results keyed on (index, lower, upper, aggregate)
+// Writers call invalidate() with the key of every record they insert or delete; any cached
+// range containing that key is dropped, so a hit is never stale. A result computed while an
+// invalidation ran could already be stale, so put() only caches it if no invalidation
+// happened since the caller read getGeneration() before evaluating the query.
+class RangeQueryCache<V> {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final class Key {
+        final String index;
+        final double lower;
+        final double higher;
+        final String aggregate;
+
+        Key(String index, double lower, double higher, String aggregate) {
+            this.index = index;
+            this.lower = lower;
+            this.higher = higher;
+            this.aggregate = aggregate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return index.equals(other.index) && lower == other.lower && higher == other.higher
+                    && aggregate.equals(other.aggregate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(index, lower, higher, aggregate);
+        }
+    }
+
+    private final LinkedHashMap<Key, V> entries;
+    private long hits;
+    private long misses;
+    private long generation; // Bumped by every invalidation
+
+    public RangeQueryCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RangeQueryCache(int capacity) {
+        this.entries = new LinkedHashMap<Key, V>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // Cached result, or null on a miss
+    public synchronized V get(String index, double lower, double higher, String aggregate) {
+        V value = entries.get(new Key(index, lower, higher, aggregate));
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    // Cache a result evaluated after reading getGeneration(); dropped if a write invalidated since
+    public synchronized void put(String index, double lower, double higher, String aggregate, V value,
+            long evaluatedAtGeneration) {
+        if (evaluatedAtGeneration == generation) {
+            entries.put(new Key(index, lower, higher, aggregate), value);
+        }
+    }
+
+    // Drop every cached range on this index that contains the written key
+    public int invalidate(String index, double key) {
+        return invalidate(index, key, key);
+    }
+
+    // Drop every cached range on this index that overlaps [lowKey, highKey]
+    public synchronized int invalidate(String index, double lowKey, double highKey) {
+        generation++;
+        int removed = 0;
+        Iterator<Key> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            Key cached = it.next();
+            if (cached.index.equals(index) && cached.lower <= highKey && cached.higher >= lowKey) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
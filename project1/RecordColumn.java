@@ -0,0 +1,92 @@
+import java.nio.ByteBuffer;
+
+// Columns of the on-disk Record layout, readable straight from block bytes
+// Lets scan operators evaluate a column without building a Record per row.
+enum RecordColumn {
+    RECORD_ID(0, 4),
+    GAME_DATE(4, 4), // YYYYMMDD
+    TEAM_ID_HOME(8, 4),
+    PTS_HOME(12, 2),
+    FG_PCT_HOME(14, 2), // fgPct * 1000
+    FT_PCT_HOME(16, 2), // ftPct * 1000
+    FG3_PCT_HOME(18, 2), // fg3Pct * 1000
+    AST_HOME(20, 2),
+    REB_HOME(22, 2),
+    HOME_TEAM_WINS(24, 1),
+    SEASON(4, 4); // Derived from GAME_DATE: seasons start in October, e.g. 2022-23 → 2022
+
+    private final int offset; // Byte offset within the record
+    private final int width; // Size in bytes
+
+    RecordColumn(int offset, int width) {
+        this.offset = offset;
+        this.width = width;
+    }
+
+    // Read this column of the record starting at recordOffset (buffer must be little endian)
+    public int read(ByteBuffer buffer, int recordOffset) {
+        int position = recordOffset + offset;
+        int value;
+        if (width == 4) {
+            value = buffer.getInt(position);
+        } else if (width == 2) {
+            value = buffer.getShort(position);
+        } else {
+            value = buffer.get(position);
+        }
+        return this == SEASON ? seasonOf(value) : value;
+    }
+
+    // Percentages are stored as fixed point (x1000)
+    public boolean isFixedPoint() {
+        return this == FG_PCT_HOME || this == FT_PCT_HOME || this == FG3_PCT_HOME;
+    }
+
+    // Every index on a fixed-point column uses these rules, so all of them answer a fraction
+    // range [lower, higher] with the same rows: the stored values atLeast(lower)..atMost(higher)
+    public static int fixedPointAtLeast(double lower) {
+        return (int) Math.ceil(lower * 1000 - 1e-9);
+    }
+
+    public static int fixedPointAtMost(double higher) {
+        return (int) Math.floor(higher * 1000 + 1e-9);
+    }
+
+    // B+ tree key of a stored fixed-point value (trees are keyed on what the Record holds)
+    public static float fixedPointKey(int value) {
+        return value / 1000f;
+    }
+
+    public int get(Record record) {
+        switch (this) {
+            case RECORD_ID:
+                return record.getRecordID();
+            case GAME_DATE:
+                return record.getGameDate();
+            case TEAM_ID_HOME:
+                return record.getTeamIDHome();
+            case PTS_HOME:
+                return record.getPtsHome();
+            case FG_PCT_HOME:
+                return record.getFgPctHome();
+            case FT_PCT_HOME:
+                return record.getFtPctHome();
+            case FG3_PCT_HOME:
+                return record.getFg3PctHome();
+            case AST_HOME:
+                return record.getAstHome();
+            case REB_HOME:
+                return record.getRebHome();
+            case HOME_TEAM_WINS:
+                return record.getHomeTeamWins();
+            default:
+                return seasonOf(record.getGameDate());
+        }
+    }
+
+    private static int seasonOf(int gameDate) {
+        int year = gameDate / 10000;
+        int month = (gameDate / 100) % 100;
+        return month >= 10 ? year : year - 1;
+    }
+}
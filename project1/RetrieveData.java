@@ -3,14 +3,17 @@ import java.io.IOException;
 public class RetrieveData {
     public static void main(String[] args) {
 
-        Disk disk = null;
-        try {
-            disk = new Disk("disk_storage.dat");
+        try (Snapshot snapshot = SnapshotManager.pin("metadata.dat")) {
+            Disk disk = snapshot.openDisk();
 
             disk.retrieveBlockData(1);
             System.out.println("----------------------------------");
 
-            disk.retrieveRecord(1);
+            // Point lookup through the primary index (one probe + one block read)
+            MappingTable primaryIndex = snapshot.openPrimaryIndex();
+            disk.retrieveRecord(1, primaryIndex);
+            primaryIndex.close();
+            disk.close();
         } catch (IOException e) {
             e.printStackTrace();
 
@@ -0,0 +1,65 @@
+import java.io.File;
+import java.io.IOException;
+
+// One published, immutable version of the table: the logical data blocks [0, dataBlockCount)
+// reached through the version's block map, plus the version's B+ tree and derived index files,
+// all kept in its own directory (snapshots/v<version>/). Nothing a snapshot refers to is
+// changed by a later writer, and the directory is kept until the snapshot is closed.
+class Snapshot implements AutoCloseable {
+    private final long version;
+    private final int dataBlockCount;
+    private boolean pinned; // Holds a pin that close() releases
+
+    public Snapshot(long version, int dataBlockCount) {
+        this.version = version;
+        this.dataBlockCount = dataBlockCount;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getDataBlockCount() {
+        return dataBlockCount;
+    }
+
+    public boolean hasTree() {
+        return new File(file(SnapshotManager.TREE_FILE)).exists();
+    }
+
+    // Path of one of this version's files, e.g. file("primary_index.dat")
+    public String file(String name) {
+        return SnapshotManager.versionDirectory(version) + File.separator + name;
+    }
+
+    // The data blocks as this snapshot sees them (read-only)
+    public Disk openDisk() throws IOException {
+        return new Disk(SnapshotManager.DATA_FILE, BlockMap.load(file(SnapshotManager.BLOCK_MAP_FILE)));
+    }
+
+    public MappingTable openPrimaryIndex() throws IOException {
+        return new MappingTable(file(SnapshotManager.PRIMARY_INDEX_FILE));
+    }
+
+    public BPlustree readTree() throws IOException, ClassNotFoundException {
+        return BPlustree.deserializeTree(file(SnapshotManager.TREE_FILE));
+    }
+
+    void setPinned(boolean pinned) {
+        this.pinned = pinned;
+    }
+
+    // Release the pin; the version may be garbage-collected by the next publish
+    @Override
+    public synchronized void close() {
+        if (pinned) {
+            pinned = false;
+            SnapshotManager.unpin(version);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Snapshot v" + version + " (" + dataBlockCount + " data blocks)";
+    }
+}
@@ -0,0 +1,168 @@
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+// Versioned snapshots for writing (loads, deletes, compaction) while queries are in flight
+// Each version lives in its own directory snapshots/v<N>/ (block map, B+ tree, primary index,
+// Bloom filters, static tree, direct and clustered indexes). SnapshotWriter fills a new
+// directory, writes data blocks copy-on-write and publishes by renaming metadata.dat last.
+//
+// Readers pin a snapshot: a shared lock on byte N of snapshots/pins.lock, so pins are seen
+// by every process. After a publish, old versions nobody pins are garbage-collected: their
+// directory is removed and their physical blocks become free for the next writer.
+//
+// metadata.dat: MAGIC (4) | version (8) | dataBlockCount (4)
+// MAGIC tags the layout; a metadata.dat written by an older layout is rejected instead of being
+// read as a snapshot.
+class SnapshotManager {
+    public static final int MAGIC = 0x534E5032; // "SNP2"
+    public static final int METADATA_SIZE = 4 + 8 + 4;
+
+    public static final String DATA_FILE = "disk_storage.dat";
+    public static final String SNAPSHOT_DIRECTORY = "snapshots";
+    public static final String BLOCK_MAP_FILE = "block_map.dat";
+    public static final String TREE_FILE = "bplustree.dat";
+    public static final String STATIC_TREE_FILE = "bplustree_static.dat";
+    public static final String PRIMARY_INDEX_FILE = "primary_index.dat";
+    public static final String TEAM_BLOOM_FILE = "team_bloom.dat";
+    public static final String CLUSTERED_INDEX_FILE = "clustered_index.dat";
+
+    private static final String PIN_LOCK_FILE = "pins.lock";
+
+    private static FileChannel pinChannel;
+    private static final Map<Long, FileLock> pinLocks = new HashMap<>();
+    private static final Map<Long, Integer> pinCounts = new HashMap<>(); // Pins per version in this process
+
+    public static String versionDirectory(long version) {
+        return SNAPSHOT_DIRECTORY + File.separator + "v" + version;
+    }
+
+    // Pin the snapshot currently published at metadataPath (version 0 and empty if none yet)
+    // Close the snapshot to release it.
+    public static Snapshot pin(String metadataPath) throws IOException {
+        while (true) {
+            Snapshot snapshot = readMetadata(metadataPath);
+            if (snapshot.getVersion() == 0) {
+                return snapshot;
+            }
+            acquire(snapshot.getVersion());
+            if (new File(versionDirectory(snapshot.getVersion())).isDirectory()) {
+                snapshot.setPinned(true);
+                return snapshot;
+            }
+            // Collected between reading metadata.dat and locking it, so a newer version is published
+            unpin(snapshot.getVersion());
+        }
+    }
+
+    static Snapshot readMetadata(String metadataPath) throws IOException {
+        if (!new File(metadataPath).exists()) {
+            return new Snapshot(0, 0);
+        }
+        try (DataInputStream metaIn = new DataInputStream(new FileInputStream(metadataPath))) {
+            if (new File(metadataPath).length() != METADATA_SIZE || metaIn.readInt() != MAGIC) {
+                throw new IOException(metadataPath + " was written by an older version of LoadFileOnDisk; "
+                        + "delete the old .dat files and re-run LoadFileOnDisk");
+            }
+            long version = metaIn.readLong();
+            int dataBlockCount = metaIn.readInt();
+            return new Snapshot(version, dataBlockCount);
+        }
+    }
+
+    private static synchronized void acquire(long version) throws IOException {
+        int count = pinCounts.getOrDefault(version, 0);
+        if (count == 0) {
+            pinLocks.put(version, pinChannel().lock(version, 1, true));
+        }
+        pinCounts.put(version, count + 1);
+    }
+
+    static synchronized void unpin(long version) {
+        int count = pinCounts.getOrDefault(version, 0);
+        if (count <= 1) {
+            pinCounts.remove(version);
+            FileLock lock = pinLocks.remove(version);
+            try {
+                if (lock != null) {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                System.err.println("Could not release pin on version " + version + ": " + e.getMessage());
+            }
+        } else {
+            pinCounts.put(version, count - 1);
+        }
+    }
+
+    private static FileChannel pinChannel() throws IOException {
+        if (pinChannel == null) {
+            new File(SNAPSHOT_DIRECTORY).mkdirs();
+            pinChannel = new RandomAccessFile(new File(SNAPSHOT_DIRECTORY, PIN_LOCK_FILE), "rw").getChannel();
+        }
+        return pinChannel;
+    }
+
+    // Remove every version other than current that no process pins (called by the writer)
+    static synchronized void collectGarbage(long current) throws IOException {
+        File[] entries = new File(SNAPSHOT_DIRECTORY).listFiles();
+        if (entries == null) {
+            return;
+        }
+        for (File entry : entries) {
+            String name = entry.getName();
+            if (entry.isDirectory() && name.endsWith(".gc")) {
+                deleteRecursively(entry); // Left over from an interrupted collection
+            }
+            if (!entry.isDirectory() || !name.matches("v\\d+")) {
+                continue;
+            }
+            long version = Long.parseLong(name.substring(1));
+            if (version == current || pinCounts.containsKey(version)) {
+                continue;
+            }
+            FileLock lock;
+            try {
+                lock = pinChannel().tryLock(version, 1, false);
+            } catch (OverlappingFileLockException e) {
+                continue;
+            }
+            if (lock == null) {
+                continue; // Pinned by another process
+            }
+            // Renamed while locked, so a reader locking it later finds no directory and re-reads metadata.dat
+            File collected = new File(SNAPSHOT_DIRECTORY, name + ".gc");
+            boolean renamed = entry.renameTo(collected);
+            lock.release();
+            if (renamed) {
+                deleteRecursively(collected);
+            }
+        }
+    }
+
+    static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    // Move a fully written temp file over its target in one step
+    // Readers that already opened (or memory-mapped) the old file keep seeing the old contents.
+    public static void replaceAtomically(File tmp, String target) throws IOException {
+        Files.move(tmp.toPath(), new File(target).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,206 @@
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.util.BitSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+// One write transaction producing the next snapshot version
+// Only one writer runs at a time (an exclusive lock on snapshots/writer.lock, across processes).
+// The writer starts from the published version: its files are copied into the new version's
+// directory, where the writer may change them, and getDisk() writes data blocks copy-on-write.
+// publish() writes the block map, the B+ tree and the files derived from it, rebuilds the
+// direct-address indexes and the clustered index (if any) from the blocks, so deletes and moved
+// records are reflected, and renames metadata.dat last, so a reader sees either the old version or the complete new one.
+// close() without publish() discards the new version.
+//
+// try (SnapshotWriter writer = SnapshotWriter.begin("metadata.dat")) {
+//     ... writer.getDisk(), writer.file(...) ...
+//     writer.publish(tree, dataBlockCount);
+// }
+class SnapshotWriter implements AutoCloseable {
+    private static final String WRITER_LOCK_FILE = "writer.lock";
+    private static final ReentrantLock writers = new ReentrantLock(); // File locks do not exclude threads of one process
+
+    // Rewritten by publish() rather than carried over from the previous version
+    private static final String[] REGENERATED = { SnapshotManager.BLOCK_MAP_FILE, SnapshotManager.TREE_FILE,
+            SnapshotManager.STATIC_TREE_FILE, DirectAddressIndex.fileName(RecordColumn.FG_PCT_HOME),
+            DirectAddressIndex.fileName(RecordColumn.FT_PCT_HOME), DirectAddressIndex.fileName(RecordColumn.FG3_PCT_HOME),
+            SnapshotManager.CLUSTERED_INDEX_FILE };
+
+    private final String metadataPath;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final Snapshot previous;
+    private final long version;
+    private final File directory;
+    private final Disk disk;
+    private RecordColumn clusterColumn; // Column of the clustered index, null if the table has none
+    private boolean published;
+
+    private SnapshotWriter(String metadataPath, FileChannel lockChannel, FileLock lock, Snapshot previous)
+            throws IOException {
+        this.metadataPath = metadataPath;
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+        this.previous = previous;
+        this.version = previous.getVersion() + 1;
+        this.directory = new File(SnapshotManager.versionDirectory(version));
+
+        // A directory past the published version was left by a writer that never published
+        File[] entries = new File(SnapshotManager.SNAPSHOT_DIRECTORY).listFiles();
+        for (File entry : entries == null ? new File[0] : entries) {
+            if (entry.isDirectory() && entry.getName().matches("v\\d+")
+                    && Long.parseLong(entry.getName().substring(1)) > previous.getVersion()) {
+                SnapshotManager.deleteRecursively(entry);
+            }
+        }
+        directory.mkdirs();
+        if (new File(previous.file(SnapshotManager.CLUSTERED_INDEX_FILE)).exists()) {
+            this.clusterColumn = ClusteredIndex.load(previous.file(SnapshotManager.CLUSTERED_INDEX_FILE)).getColumn();
+        }
+        File[] files = new File(SnapshotManager.versionDirectory(previous.getVersion())).listFiles();
+        for (File file : files == null ? new File[0] : files) {
+            if (!isRegenerated(file.getName()) && !file.getName().endsWith(".tmp")) {
+                Files.copy(file.toPath(), new File(directory, file.getName()).toPath());
+            }
+        }
+
+        // Physical blocks of every retained version stay untouched; everything else is free
+        BitSet inUse = new BitSet();
+        for (File entry : new File(SnapshotManager.SNAPSHOT_DIRECTORY).listFiles()) {
+            File map = new File(entry, SnapshotManager.BLOCK_MAP_FILE);
+            if (entry.isDirectory() && entry.getName().matches("v\\d+") && map.exists()) {
+                BlockMap.load(map.getPath()).markUsed(inUse);
+            }
+        }
+        int fileBlocks = (int) (new File(SnapshotManager.DATA_FILE).length() / Disk.BLOCK_SIZE);
+        BlockMap published = BlockMap.load(previous.file(SnapshotManager.BLOCK_MAP_FILE));
+        this.disk = new Disk(SnapshotManager.DATA_FILE, published.forWriting(inUse, fileBlocks));
+    }
+
+    // Wait for any other writer, then start from the published snapshot
+    public static SnapshotWriter begin(String metadataPath) throws IOException {
+        writers.lock();
+        FileChannel lockChannel = null;
+        Snapshot previous = null;
+        try {
+            new File(SnapshotManager.SNAPSHOT_DIRECTORY).mkdirs();
+            lockChannel = new RandomAccessFile(new File(SnapshotManager.SNAPSHOT_DIRECTORY, WRITER_LOCK_FILE), "rw")
+                    .getChannel();
+            FileLock lock = lockChannel.lock();
+            previous = SnapshotManager.pin(metadataPath);
+            return new SnapshotWriter(metadataPath, lockChannel, lock, previous);
+        } catch (IOException | RuntimeException e) {
+            if (previous != null) {
+                previous.close();
+            }
+            if (lockChannel != null) {
+                lockChannel.close(); // Also releases the file lock
+            }
+            writers.unlock();
+            throw e;
+        }
+    }
+
+    private static boolean isRegenerated(String name) {
+        for (String regenerated : REGENERATED) {
+            if (regenerated.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The version this writer started from
+    public Snapshot getPrevious() {
+        return previous;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Data blocks of the new version; every write goes to a block no published version uses
+    public Disk getDisk() {
+        return disk;
+    }
+
+    // Path of one of the new version's files (carried over from the previous version if it had it)
+    public String file(String name) {
+        return new File(directory, name).getPath();
+    }
+
+    // The table keeps a clustered index on this column from now on (see ClusteredIndex)
+    public void setClusterColumn(RecordColumn clusterColumn) {
+        this.clusterColumn = clusterColumn;
+    }
+
+    public MappingTable openPrimaryIndex() throws IOException {
+        return new MappingTable(file(SnapshotManager.PRIMARY_INDEX_FILE));
+    }
+
+    // Tree of the previous version, for writers that update it rather than rebuild it
+    public BPlustree readTree() throws IOException, ClassNotFoundException {
+        return previous.readTree();
+    }
+
+    // Write the rest of the new version and make it the published one
+    public Snapshot publish(BPlustree tree, int dataBlockCount) throws IOException {
+        disk.sync(); // Blocks must be durable before anything points at them
+        disk.getBlockMap().truncate(dataBlockCount); // Blocks past the table are freed by the next garbage collection
+        disk.getBlockMap().save(file(SnapshotManager.BLOCK_MAP_FILE));
+        tree.serializeTree(file(SnapshotManager.TREE_FILE));
+        StaticSearchTree.export(tree, file(SnapshotManager.STATIC_TREE_FILE));
+        for (RecordColumn column : DirectAddressIndex.COLUMNS) {
+            DirectAddressIndex.build(disk, dataBlockCount, column).save(file(DirectAddressIndex.fileName(column)));
+        }
+        if (clusterColumn != null) {
+            ClusteredIndex clusteredIndex = ClusteredIndex.build(disk, dataBlockCount, clusterColumn);
+            clusteredIndex.save(file(SnapshotManager.CLUSTERED_INDEX_FILE));
+            System.out.println("Clustered index on " + clusterColumn + " (blocks in key order: "
+                    + clusteredIndex.isClustered() + ")");
+        }
+        for (File file : directory.listFiles()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.getFD().sync();
+            }
+        }
+
+        File tmp = new File(metadataPath + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tmp);
+                DataOutputStream metaOut = new DataOutputStream(fileOut)) {
+            metaOut.writeInt(SnapshotManager.MAGIC);
+            metaOut.writeLong(version);
+            metaOut.writeInt(dataBlockCount);
+            metaOut.flush();
+            fileOut.getFD().sync();
+        }
+        SnapshotManager.replaceAtomically(tmp, metadataPath);
+        published = true;
+        System.out.println("Published snapshot version " + version + " (" + dataBlockCount + " data blocks)");
+        return new Snapshot(version, dataBlockCount);
+    }
+
+    // Discard an unpublished version, collect unpinned old versions and let the next writer in
+    @Override
+    public void close() throws IOException {
+        try {
+            disk.close();
+            previous.close();
+            if (published) {
+                SnapshotManager.collectGarbage(version);
+            } else {
+                SnapshotManager.deleteRecursively(directory);
+            }
+        } finally {
+            lock.release();
+            lockChannel.close();
+            writers.unlock();
+        }
+    }
+}
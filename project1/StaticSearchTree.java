@@ -0,0 +1,243 @@
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Read-only, memory-mapped export of a bulk-loaded BPlustree
+// Query-only processes open this file instead of deserializing the Node graph.
+//
+// File layout (little endian):
+//   header        : MAGIC (4) | numKeys n (4) | numRids m (4) | reserved (4)
+//   eytKeys       : float[n + 1]  distinct keys in Eytzinger (BFS) order, slot 0 unused
+//   eytRank       : int[n + 1]    sorted rank of the key held in each Eytzinger slot
+//   sortedKeys    : float[n]      distinct keys in ascending order
+//   postingStart  : int[n + 1]    RIDs of the key with rank r are [postingStart[r], postingStart[r + 1])
+//   rids          : m * (blockID (4) | record index (4))
+class StaticSearchTree {
+    public static final int MAGIC = 0x53535431; // "SST1"
+    public static final int HEADER_SIZE = 16;
+    public static final int RID_SIZE = 8;
+
+    private final MappedByteBuffer buffer;
+    private final int numKeys;
+    private final int eytKeysOffset;
+    private final int eytRankOffset;
+    private final int postingStartOffset;
+    private final int ridsOffset;
+
+    private StaticSearchTree(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a static search tree file");
+        }
+        this.numKeys = buffer.getInt(4);
+        this.eytKeysOffset = HEADER_SIZE;
+        this.eytRankOffset = eytKeysOffset + (numKeys + 1) * 4;
+        int sortedKeysOffset = eytRankOffset + (numKeys + 1) * 4;
+        this.postingStartOffset = sortedKeysOffset + numKeys * 4;
+        this.ridsOffset = postingStartOffset + (numKeys + 1) * 4;
+    }
+
+    public int getNumKeys() {
+        return numKeys;
+    }
+
+    // Write the leaf level of a bulk-loaded tree out in the static layout
+    public static void export(BPlustree tree, String fileName) throws IOException {
+        List<Float> keys = new ArrayList<>();
+        List<List<PhysicalAddress>> postings = new ArrayList<>();
+
+        // Find the leftmost leaf and walk the leaf chain
+        Node node = tree.getRoot();
+        while (!node.isLeaf) {
+            node = node.children.get(0);
+        }
+        int numRids = 0;
+        while (node != null) {
+            for (int j = 0; j < node.keys.size(); j++) {
+                keys.add(node.keys.get(j));
+                postings.add(node.data_pointers.get(j));
+                numRids += node.data_pointers.get(j).size();
+            }
+            node = node.next;
+        }
+
+        int n = keys.size();
+        float[] eytKeys = new float[n + 1];
+        int[] eytRank = new int[n + 1];
+        fillEytzinger(keys, eytKeys, eytRank, 0, 1);
+
+        // Written beside the old file and renamed over it, so processes that still have the
+        // old file mapped keep a consistent view
+        File tmp = new File(fileName + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp))) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(n).putInt(numRids).putInt(0);
+            out.write(header.array());
+
+            ByteBuffer section = ByteBuffer.allocate((n + 1) * 4).order(ByteOrder.LITTLE_ENDIAN);
+            for (float key : eytKeys) {
+                section.putFloat(key);
+            }
+            out.write(section.array());
+
+            section.clear();
+            for (int rank : eytRank) {
+                section.putInt(rank);
+            }
+            out.write(section.array());
+
+            section = ByteBuffer.allocate(n * 4).order(ByteOrder.LITTLE_ENDIAN);
+            for (float key : keys) {
+                section.putFloat(key);
+            }
+            out.write(section.array());
+
+            section = ByteBuffer.allocate((n + 1) * 4).order(ByteOrder.LITTLE_ENDIAN);
+            int start = 0;
+            for (List<PhysicalAddress> posting : postings) {
+                section.putInt(start);
+                start += posting.size();
+            }
+            section.putInt(start);
+            out.write(section.array());
+
+            ByteBuffer rid = ByteBuffer.allocate(RID_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (List<PhysicalAddress> posting : postings) {
+                for (PhysicalAddress address : posting) {
+                    rid.clear();
+                    rid.putInt(address.getBlockNumber()).putInt(address.getIndex());
+                    out.write(rid.array());
+                }
+            }
+        }
+        SnapshotManager.replaceAtomically(tmp, fileName);
+    }
+
+    // In-order walk of the implicit tree rooted at slot k hands out sorted keys in BFS layout
+    private static int fillEytzinger(List<Float> sorted, float[] eytKeys, int[] eytRank, int next, int k) {
+        if (k < eytKeys.length) {
+            next = fillEytzinger(sorted, eytKeys, eytRank, next, 2 * k);
+            eytKeys[k] = sorted.get(next);
+            eytRank[k] = next;
+            next++;
+            next = fillEytzinger(sorted, eytKeys, eytRank, next, 2 * k + 1);
+        }
+        return next;
+    }
+
+    // Memory-map an exported file; nothing is deserialized
+    public static StaticSearchTree open(String fileName) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r");
+                FileChannel channel = file.getChannel()) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            return new StaticSearchTree(mapped);
+        }
+    }
+
+    // Rank of the first key >= lower (numKeys if there is none)
+    public int lowerBound(double lower) {
+        int k = 1;
+        while (k <= numKeys) {
+            k = 2 * k + (buffer.getFloat(eytKeysOffset + k * 4) < lower ? 1 : 0);
+        }
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        return k == 0 ? numKeys : buffer.getInt(eytRankOffset + k * 4);
+    }
+
+    // First rank of the keys in a fraction range [lower, higher] (same rows as DirectAddressIndex)
+    public int rangeStart(double lower) {
+        int lo = RecordColumn.fixedPointAtLeast(lower);
+        return lo == Integer.MIN_VALUE ? 0 : lowerBound(RecordColumn.fixedPointKey(lo));
+    }
+
+    // End (exclusive) rank of the keys <= higher
+    public int rangeEnd(double higher) {
+        int hi = RecordColumn.fixedPointAtMost(higher);
+        return hi == Integer.MAX_VALUE ? numKeys : lowerBound(RecordColumn.fixedPointKey(hi + 1));
+    }
+
+    public int getPostingStart(int rank) {
+        return buffer.getInt(postingStartOffset + rank * 4);
+    }
+
+    public int getRidBlock(int rid) {
+        return buffer.getInt(ridsOffset + rid * RID_SIZE);
+    }
+
+    public int getRidIndex(int rid) {
+        return buffer.getInt(ridsOffset + rid * RID_SIZE + 4);
+    }
+
+    // ORDER BY FG_PCT_home LIMIT k: the k records with the highest (or lowest) key
+    // Walks the sorted ranks from one end and stops after k live records, so only the blocks
+    // holding them are read and nothing is deserialized.
+    public List<Record> search_top_k(int k, boolean highest, Disk disk) throws IOException {
+        List<Record> result = new ArrayList<>();
+        Map<Integer, Block> blocks_read = new HashMap<>();
+        for (int step = 0; step < numKeys && result.size() < k; step++) {
+            int rank = highest ? numKeys - 1 - step : step;
+            for (int rid = getPostingStart(rank); rid < getPostingStart(rank + 1) && result.size() < k; rid++) {
+                int blockID = getRidBlock(rid);
+                Block block = blocks_read.get(blockID);
+                if (block == null) {
+                    block = disk.readBlock(blockID);
+                    blocks_read.put(blockID, block);
+                }
+                Record record_to_fetch = block.getRecord(getRidIndex(rid));
+                if (record_to_fetch != null) { // Skip records deleted since the export
+                    result.add(record_to_fetch);
+                }
+            }
+        }
+        return result;
+    }
+
+    public void search_range(double lower, double higher, Disk disk) {
+        float sum = 0; // to store the total value of FG_PCT_Home
+        int count = 0; // to store the total number of records found
+        Map<Integer, Block> blocks_read = new HashMap<>(); // each data block is read once per query
+
+        int end = rangeEnd(higher);
+        for (int rank = rangeStart(lower); rank < end; rank++) {
+            for (int rid = getPostingStart(rank); rid < getPostingStart(rank + 1); rid++) {
+                try {
+                    int blockID = getRidBlock(rid);
+                    Block block = blocks_read.get(blockID);
+                    if (block == null) {
+                        block = disk.readBlock(blockID);
+                        blocks_read.put(blockID, block);
+                    }
+                    Record record_to_fetch = block.getRecord(getRidIndex(rid));
+                    if (record_to_fetch == null) {
+                        continue; // Deleted since the index was built
+                    }
+                    sum += record_to_fetch.getFgPctHome();
+                    count += 1;
+                } catch (IOException e) {
+                    System.err.println("Error retrieving record: " + e.getMessage());
+                }
+            }
+        }
+
+        if (count > 0) {
+            float avg = sum / count / 1000;
+            System.out.println("Average: " + avg);
+            System.out.println("Total records found: " + count);
+            System.out.println("Number of blocks accessed: " + blocks_read.size());
+        } else {
+            System.out.println("No records found in the given range.");
+        }
+    }
+}
@@ -2,36 +2,93 @@ import java.io.*;
 
 public class Task3 {
     public static void main(String[] args) {
+        // Every query below runs against the snapshot published now, even if a load or delete
+        // publishes a newer one meanwhile
+        try (Snapshot snapshot = SnapshotManager.pin("metadata.dat")) {
+            runQueries(snapshot);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void runQueries(Snapshot snapshot) {
         System.out.println("=== Brute Force Linear Scan ===");
         long startTime = System.currentTimeMillis(); // Start time
-        BruteForceLinearScan.performScan();
+        BruteForceLinearScan.performScan(snapshot);
         long endTime = System.currentTimeMillis(); // End time
         System.out.println("Brute Force Linear Scan Time: " + (endTime - startTime) + " ms");
 
         System.out.println("\n=== B+ Tree Retrieval ===");
         try {
             startTime = System.currentTimeMillis(); // Start time
-            new BplusTreeQuery().retrieveTreeFromDiskAndQuery();
+            new BplusTreeQuery(snapshot).retrieveTreeFromDiskAndQuery();
             endTime = System.currentTimeMillis(); // End time
             System.out.println("B+ Tree Query Time: " + (endTime - startTime) + " ms");
         } catch (Exception e) {
             e.printStackTrace();
         }
+
+        System.out.println("\n=== B+ Tree Batched Range Retrieval ===");
+        try {
+            startTime = System.currentTimeMillis(); // Start time
+            new BplusTreeQuery(snapshot).retrieveTreeFromDiskAndBatchQuery();
+            endTime = System.currentTimeMillis(); // End time
+            System.out.println("B+ Tree Batched Query Time: " + (endTime - startTime) + " ms");
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        System.out.println("\n=== Direct-Address Index Retrieval ===");
+        try {
+            startTime = System.currentTimeMillis(); // Start time
+            DirectAddressIndex index = DirectAddressIndex.load(snapshot.file(DirectAddressIndex.fileName(RecordColumn.FG_PCT_HOME)));
+            Disk disk = snapshot.openDisk();
+            index.search_range(0.600, 0.900, disk);
+            disk.close();
+            endTime = System.currentTimeMillis(); // End time
+            System.out.println("Direct-Address Index Query Time: " + (endTime - startTime) + " ms");
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        if (new File(snapshot.file(SnapshotManager.CLUSTERED_INDEX_FILE)).exists()) {
+            System.out.println("\n=== Clustered Index Retrieval ===");
+            try {
+                startTime = System.currentTimeMillis(); // Start time
+                ClusteredIndex index = ClusteredIndex.load(snapshot.file(SnapshotManager.CLUSTERED_INDEX_FILE));
+                Disk disk = snapshot.openDisk();
+                if (index.getColumn() == RecordColumn.FG_PCT_HOME) {
+                    index.search_range(600, 900, disk);
+                } else {
+                    System.out.println("Table is clustered on " + index.getColumn() + ", not FG_PCT_home.");
+                }
+                disk.close();
+                endTime = System.currentTimeMillis(); // End time
+                System.out.println("Clustered Index Query Time: " + (endTime - startTime) + " ms");
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        System.out.println("\n=== Static Search Tree Retrieval ===");
+        try {
+            startTime = System.currentTimeMillis(); // Start time
+            new StaticSearchTreeQuery().openTreeAndQuery(snapshot);
+            endTime = System.currentTimeMillis(); // End time
+            System.out.println("Static Search Tree Query Time: " + (endTime - startTime) + " ms");
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
     }
 }
 
 class BruteForceLinearScan {
-    public static void performScan() {
+    public static void performScan(Snapshot snapshot) {
         try {
-            Disk disk = new Disk("disk_storage.dat");
-            long treeOffset;
-            try (DataInputStream metaIn = new DataInputStream(new FileInputStream("metadata.dat"))) {
-                treeOffset = metaIn.readLong();
-            }
+            Disk disk = snapshot.openDisk();
 
             int totalRecordsFound = 0;
-            int blockSize = 4096;
-            int maxBlocksToScan = (int) Math.ceil((double) treeOffset / blockSize);
+            int maxBlocksToScan = snapshot.getDataBlockCount(); // Blocks of the pinned snapshot
             int readBlockCounter = 0;
             int uniqueBlock = 0;
             boolean found = false;
@@ -56,6 +113,7 @@ class BruteForceLinearScan {
             System.out.println("Average: " + average);
             System.out.println("Total records found: " + totalRecordsFound);
             System.out.println("Number of blocks accessed: " + readBlockCounter);
+            disk.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -63,26 +121,42 @@ class BruteForceLinearScan {
 }
 
 class BplusTreeQuery {
-    public void retrieveTreeFromDiskAndQuery() throws Exception {
-        long treeOffset, treeLength;
-        try (DataInputStream metaIn = new DataInputStream(new FileInputStream("metadata.dat"))) {
-            treeOffset = metaIn.readLong();
-            treeLength = metaIn.readLong();
-        }
+    private final Snapshot snapshot;
 
-        byte[] treeBytes = new byte[(int) treeLength];
+    public BplusTreeQuery(Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
 
-        try (RandomAccessFile raf = new RandomAccessFile("disk_storage.dat", "r")) {
-            raf.seek(treeOffset);
-            raf.readFully(treeBytes);
-        }
+    public void retrieveTreeFromDiskAndQuery() throws Exception {
+        BPlustree tree = retrieveTreeFromDisk();
+        tree.search_range(0.600, 0.900, tree.getRoot(), snapshot.openDisk());
+    }
 
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(treeBytes);
-                ObjectInputStream ois = new ObjectInputStream(bais)) {
-            BPlustree tree = (BPlustree) ois.readObject();
-            System.out.println("B+ tree successfully retrieved.");
-            tree.search_range(0.600, 0.900, tree.getRoot(), new Disk("disk_storage.dat"));
+    // FG% histogram buckets evaluated in one pass over the tree
+    public void retrieveTreeFromDiskAndBatchQuery() throws Exception {
+        BPlustree tree = retrieveTreeFromDisk();
+        double[][] buckets = new double[6][];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new double[] { (3 + i) / 10.0, (4 + i) / 10.0 };
         }
+        tree.search_ranges(buckets, tree.getRoot(), snapshot.openDisk());
+    }
+
+    // Tree of the pinned snapshot; a concurrent load does not affect it
+    BPlustree retrieveTreeFromDisk() throws Exception {
+        BPlustree tree = snapshot.readTree();
+        System.out.println("B+ tree successfully retrieved (snapshot version " + snapshot.getVersion() + ").");
+        return tree;
+    }
+}
 
+class StaticSearchTreeQuery {
+    public void openTreeAndQuery(Snapshot snapshot) throws Exception {
+        // Memory-mapped: no ObjectInputStream, the process is ready as soon as the file is mapped
+        StaticSearchTree tree = StaticSearchTree.open(snapshot.file(SnapshotManager.STATIC_TREE_FILE));
+        System.out.println("Static search tree opened with " + tree.getNumKeys() + " keys.");
+        Disk disk = snapshot.openDisk();
+        tree.search_range(0.600, 0.900, disk);
+        disk.close();
     }
 }
@@ -0,0 +1,56 @@
+import java.io.IOException;
+
+// Equality query on teamIDHome: "all home games for team X"
+// Blocks whose Bloom filter rules the team out are skipped without being read.
+public class TeamQuery {
+    public static void main(String[] args) {
+        int teamID = args.length > 0 ? Integer.parseInt(args[0]) : 1610612740;
+
+        try (Snapshot snapshot = SnapshotManager.pin("metadata.dat")) {
+            Disk disk = snapshot.openDisk();
+            BloomFilterIndex teamFilters = BloomFilterIndex.open(snapshot.file(SnapshotManager.TEAM_BLOOM_FILE));
+
+            int totalRecordsFound = 0;
+            int blocksRead = 0;
+            int blocksSkipped = 0;
+            int falsePositives = 0;
+            float sumPts = 0;
+            int wins = 0;
+
+            for (int blockID = 0; blockID < teamFilters.getNumBlocks(); blockID++) {
+                if (!teamFilters.mightContain(blockID, teamID)) {
+                    blocksSkipped++;
+                    continue;
+                }
+                Block block = disk.readBlock(blockID);
+                blocksRead++;
+                boolean found = false;
+                for (Record record : block.getRecords()) {
+                    if (record.getTeamIDHome() == teamID) {
+                        totalRecordsFound++;
+                        sumPts += record.getPtsHome();
+                        wins += record.getHomeTeamWins();
+                        found = true;
+                    }
+                }
+                if (!found) {
+                    falsePositives++;
+                }
+            }
+
+            System.out.println("Team ID: " + teamID);
+            System.out.println("Total records found: " + totalRecordsFound);
+            if (totalRecordsFound > 0) {
+                System.out.println("Average home points: " + (sumPts / totalRecordsFound));
+                System.out.println("Home win rate: " + ((float) wins / totalRecordsFound));
+            }
+            System.out.println("Number of blocks accessed: " + blocksRead);
+            System.out.println("Number of blocks skipped by Bloom filter: " + blocksSkipped);
+            System.out.println("Number of Bloom filter false positives: " + falsePositives);
+
+            disk.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+import java.util.List;
+
+// Leaderboard queries: SELECT * ORDER BY <column> [DESC|ASC] LIMIT k
+// e.g. java -cp bin TopKQuery FG_PCT_HOME 10 DESC   (10 highest FG% games)
+//      java -cp bin TopKQuery GAME_DATE 5 DESC      (5 latest games)
+// FG_PCT_HOME is answered from one end of the memory-mapped static search tree; other columns
+// use a bounded-heap scan.
+public class TopKQuery {
+    public static void main(String[] args) {
+        RecordColumn column = args.length > 0 ? RecordColumn.valueOf(args[0].toUpperCase()) : RecordColumn.FG_PCT_HOME;
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        boolean highest = args.length <= 2 || args[2].equalsIgnoreCase("DESC");
+        if (k <= 0) {
+            System.out.println("LIMIT must be a positive number of rows, got " + k);
+            return;
+        }
+
+        try (Snapshot snapshot = SnapshotManager.pin("metadata.dat")) {
+            Disk disk = snapshot.openDisk();
+
+            long startTime = System.nanoTime(); // Start time
+            List<Record> result;
+            if (column == RecordColumn.FG_PCT_HOME && snapshot.hasTree()) {
+                System.out.println("Plan: static search tree walk from the " + (highest ? "highest" : "lowest") + " key");
+                StaticSearchTree tree = StaticSearchTree.open(snapshot.file(SnapshotManager.STATIC_TREE_FILE));
+                result = tree.search_top_k(k, highest, disk);
+            } else {
+                System.out.println("Plan: bounded heap scan of " + snapshot.getDataBlockCount() + " blocks");
+                result = new TopKScan(column, k, highest).run(disk, snapshot.getDataBlockCount());
+            }
+            long endTime = System.nanoTime(); // End time
+
+            for (Record record : result) {
+                System.out.println(column + "=" + column.get(record) + " " + record);
+            }
+            System.out.println("Number of blocks accessed: " + disk.getBlocksRead());
+            System.out.println("Top-K Time: " + (endTime - startTime) / 1_000_000.0 + " ms");
+            disk.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+// ORDER BY column LIMIT k over the raw block bytes, for columns without an index
+// Keeps a bounded min-heap of k packed (value, RID) longs, so memory stays O(k) and a row
+// only costs a compare unless it beats the current k-th best. Only the k winners are
+// materialised as Records at the end.
+class TopKScan {
+    private final RecordColumn column;
+    private final int k;
+    private final boolean highest;
+
+    private long[] heap; // heap[0] is the worst of the current top k
+    private int size;
+
+    public TopKScan(RecordColumn column, int k, boolean highest) {
+        this.column = column;
+        this.k = k;
+        this.highest = highest;
+    }
+
+    // Best k records first (highest or lowest values, ties in RID order)
+    public List<Record> run(Disk disk, int numBlocks) throws IOException {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        heap = new long[k];
+        size = 0;
+
+        ByteBuffer buffer = ByteBuffer.allocate(Block.BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int blockID = 0; blockID < numBlocks; blockID++) {
+            disk.readBlockBytes(blockID, buffer);
+            for (int slot = 0; slot < Block.RECORDS_PER_BLOCK; slot++) {
+                if (!Block.isSlotUsed(buffer, slot)) {
+                    continue;
+                }
+                int value = column.read(buffer, Block.recordOffset(slot));
+                offer(pack(value, blockID * Block.RECORDS_PER_BLOCK + slot));
+            }
+        }
+
+        // Draining the min-heap yields the winners worst first
+        long[] winners = new long[size];
+        for (int i = size - 1; i >= 0; i--) {
+            winners[i] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0);
+        }
+
+        List<Record> result = new ArrayList<>();
+        for (long packed : winners) {
+            int rid = (int) (~packed);
+            result.add(disk.retrieveRecordByAddress(
+                    new PhysicalAddress(rid / Block.RECORDS_PER_BLOCK, rid % Block.RECORDS_PER_BLOCK)));
+        }
+        return result;
+    }
+
+    // Larger packed value = better row; the RID is inverted so that earlier RIDs win ties
+    private long pack(int value, int rid) {
+        long orderedValue = highest ? value : -(long) value;
+        return (orderedValue << 32) | (~rid & 0xFFFFFFFFL);
+    }
+
+    private void offer(long packed) {
+        if (size < k) {
+            heap[size] = packed;
+            int i = size++;
+            while (i > 0 && heap[(i - 1) / 2] > heap[i]) {
+                long tmp = heap[i];
+                heap[i] = heap[(i - 1) / 2];
+                heap[(i - 1) / 2] = tmp;
+                i = (i - 1) / 2;
+            }
+        } else if (k > 0 && packed > heap[0]) {
+            heap[0] = packed;
+            siftDown(0);
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && heap[left] < heap[smallest]) {
+                smallest = left;
+            }
+            if (right < size && heap[right] < heap[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            long tmp = heap[i];
+            heap[i] = heap[smallest];
+            heap[smallest] = tmp;
+            i = smallest;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Replays a mix of point lookups, FG% range queries, GROUP BY aggregates and inserts
+// against Disk / BPlustree from many threads and reports, per operation type, throughput,
+// latency percentiles (p50/p99/p99.9 from LatencyHistogram) and blocks read/written.
+//
+// java -cp bin WorkloadDriver [--threads=8] [--duration=10] [--rate=<ops/s>]
+//                             [--mix=point=70,range=20,aggregate=5,insert=5] [--range-width=0.01] [--seed=1]
+//
+// Without --rate the workers run closed-loop (next operation as soon as the last one returns).
+// With --rate the operations follow a fixed open-loop schedule, and latency is measured from
+// each operation's scheduled start so a stall also counts against the operations queued behind it.
+// Inserts go into a scratch copy of the table and primary index, so the loaded data is untouched.
+public class WorkloadDriver {
+    enum Operation { POINT, RANGE, AGGREGATE, INSERT }
+
+    private static final String SCRATCH_DISK = "workload_disk_storage.dat";
+    private static final String SCRATCH_PRIMARY_INDEX = "workload_primary_index.dat";
+
+    private final BPlustree tree;
+    private final MappingTable primaryIndex;
+    private final Disk writerDisk; // Used by inserts only, under the write lock
+    private final ReentrantReadWriteLock treeLock = new ReentrantReadWriteLock();
+    private final double rangeWidth;
+    private final GroupByAggregator seasonReport = new GroupByAggregator(RecordColumn.SEASON,
+            RecordColumn.PTS_HOME, RecordColumn.HOME_TEAM_WINS);
+
+    // Every indexed (key, address) pair, sampled for range bounds and rows to insert
+    private final float[] sampleKeys;
+    private final int[] sampleBlocks;
+    private final int[] sampleIndexes;
+
+    private volatile int dataBlockCount;
+    private volatile int nextRecordID; // Set after the new ID is mapped, so lookups can sample below it
+    private Block tailBlock;
+
+    public WorkloadDriver(BPlustree tree, MappingTable primaryIndex, Disk writerDisk, int dataBlockCount,
+            double rangeWidth) throws IOException {
+        this.tree = tree;
+        this.primaryIndex = primaryIndex;
+        this.writerDisk = writerDisk;
+        this.dataBlockCount = dataBlockCount;
+        this.rangeWidth = rangeWidth;
+        this.nextRecordID = Math.max(1, primaryIndex.size());
+
+        List<long[]> entries = new ArrayList<>();
+        Node node = tree.getRoot();
+        while (!node.isLeaf) {
+            node = node.children.get(0);
+        }
+        for (; node != null; node = node.next) {
+            for (int j = 0; j < node.keys.size(); j++) {
+                for (PhysicalAddress add : node.data_pointers.get(j)) {
+                    entries.add(new long[] { Float.floatToIntBits(node.keys.get(j)), add.getBlockNumber(), add.getIndex() });
+                }
+            }
+        }
+        sampleKeys = new float[entries.size()];
+        sampleBlocks = new int[entries.size()];
+        sampleIndexes = new int[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            sampleKeys[i] = Float.intBitsToFloat((int) entries.get(i)[0]);
+            sampleBlocks[i] = (int) entries.get(i)[1];
+            sampleIndexes[i] = (int) entries.get(i)[2];
+        }
+    }
+
+    public static void main(String[] args) {
+        int threads = 8;
+        int durationSeconds = 10;
+        double rate = 0; // 0 = closed loop
+        double rangeWidth = 0.01;
+        long seed = 1;
+        int[] mix = { 70, 20, 5, 5 }; // Weights in Operation order
+
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(value);
+            } else if (arg.startsWith("--duration=")) {
+                durationSeconds = Integer.parseInt(value);
+            } else if (arg.startsWith("--rate=")) {
+                rate = Double.parseDouble(value);
+            } else if (arg.startsWith("--range-width=")) {
+                rangeWidth = Double.parseDouble(value);
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(value);
+            } else if (arg.startsWith("--mix=")) {
+                mix = new int[Operation.values().length];
+                for (String part : value.split(",")) {
+                    String[] weight = part.split("=");
+                    mix[Operation.valueOf(weight[0].toUpperCase()).ordinal()] = Integer.parseInt(weight[1]);
+                }
+            } else {
+                System.err.println("Unknown option: " + arg);
+                return;
+            }
+        }
+
+        Disk writerDisk = null;
+        MappingTable primaryIndex = null;
+        try (Snapshot snapshot = SnapshotManager.pin("metadata.dat")) {
+            // Work on a scratch copy of the snapshot so inserts never touch the loaded table
+            copyBlocks(snapshot, SCRATCH_DISK);
+            Files.copy(new File(snapshot.file(SnapshotManager.PRIMARY_INDEX_FILE)).toPath(),
+                    new File(SCRATCH_PRIMARY_INDEX).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            writerDisk = new Disk(SCRATCH_DISK);
+            primaryIndex = new MappingTable(SCRATCH_PRIMARY_INDEX);
+
+            WorkloadDriver driver = new WorkloadDriver(snapshot.readTree(), primaryIndex, writerDisk,
+                    snapshot.getDataBlockCount(), rangeWidth);
+            System.out.println("Workload: " + threads + " threads, " + durationSeconds + " s, "
+                    + (rate > 0 ? "open loop at " + rate + " ops/s" : "closed loop") + ", mix point/range/aggregate/insert = "
+                    + mix[0] + "/" + mix[1] + "/" + mix[2] + "/" + mix[3]);
+            driver.run(threads, durationSeconds, rate, mix, seed);
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            try {
+                if (writerDisk != null) writerDisk.close();
+                if (primaryIndex != null) primaryIndex.close();
+            } catch (IOException ignored) {}
+            new File(SCRATCH_DISK).delete();
+            new File(SCRATCH_PRIMARY_INDEX).delete();
+        }
+    }
+
+    // Per-thread results, merged once the run is over
+    private static class WorkerStats {
+        final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+        final long[] blocksRead = new long[Operation.values().length];
+        final long[] blocksWritten = new long[Operation.values().length];
+        long errors;
+        long missed; // Open loop: scheduled operations never issued because the run fell behind
+
+        WorkerStats() {
+            for (int op = 0; op < latencies.length; op++) {
+                latencies[op] = new LatencyHistogram();
+            }
+        }
+
+        void merge(WorkerStats other) {
+            for (int op = 0; op < latencies.length; op++) {
+                latencies[op].merge(other.latencies[op]);
+                blocksRead[op] += other.blocksRead[op];
+                blocksWritten[op] += other.blocksWritten[op];
+            }
+            errors += other.errors;
+            missed += other.missed;
+        }
+    }
+
+    public void run(int threads, int durationSeconds, double rate, int[] mix, long seed) throws Exception {
+        int totalWeight = 0;
+        for (int weight : mix) {
+            totalWeight += weight;
+        }
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("Operation mix has no weight");
+        }
+
+        WorkerStats[] stats = new WorkerStats[threads];
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        long end = start + durationSeconds * 1_000_000_000L;
+        long interval = rate > 0 ? (long) (threads * 1_000_000_000L / rate) : 0; // Per-thread schedule
+
+        for (int t = 0; t < threads; t++) {
+            WorkerStats workerStats = new WorkerStats();
+            stats[t] = workerStats;
+            Random random = new Random(seed + t);
+            int weightSum = totalWeight;
+            long offset = interval * t / threads; // Stagger the open-loop schedules
+            workers[t] = new Thread(() -> {
+                try (DiskHandle handle = new DiskHandle(new Disk(SCRATCH_DISK))) {
+                    for (long k = 0; ; k++) {
+                        long scheduled = interval > 0 ? start + offset + k * interval : System.nanoTime();
+                        if (scheduled >= end) {
+                            break;
+                        }
+                        long now = System.nanoTime();
+                        if (now >= end) {
+                            if (interval > 0) {
+                                workerStats.missed += (end - scheduled + interval - 1) / interval;
+                            }
+                            break;
+                        }
+                        if (now < scheduled) {
+                            LockSupport.parkNanos(scheduled - now);
+                        }
+                        Operation op = pick(random.nextInt(weightSum), mix);
+                        execute(op, random, handle.disk, workerStats);
+                        workerStats.latencies[op.ordinal()].record(System.nanoTime() - scheduled);
+                    }
+                } catch (IOException e) {
+                    System.err.println("Worker failed: " + e.getMessage());
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        WorkerStats total = new WorkerStats();
+        for (WorkerStats workerStats : stats) {
+            total.merge(workerStats);
+        }
+        report(total, elapsedSeconds);
+    }
+
+    // Write the snapshot's blocks into a plain block file, block i at position i
+    private static void copyBlocks(Snapshot snapshot, String fileName) throws IOException {
+        new File(fileName).delete();
+        Disk source = snapshot.openDisk();
+        Disk target = new Disk(fileName);
+        for (int blockID = 0; blockID < source.getBlockCounter(); blockID++) {
+            target.writeBlock(source.readBlock(blockID));
+        }
+        source.close();
+        target.close();
+    }
+
+    private static Operation pick(int draw, int[] mix) {
+        for (Operation op : Operation.values()) {
+            draw -= mix[op.ordinal()];
+            if (draw < 0) {
+                return op;
+            }
+        }
+        return Operation.POINT;
+    }
+
+    private void execute(Operation op, Random random, Disk disk, WorkerStats stats) {
+        long readBefore = disk.getBlocksRead();
+        try {
+            switch (op) {
+                case POINT:
+                    point(1 + random.nextInt(Math.max(1, nextRecordID - 1)), disk); // Preloaded and inserted IDs
+                    break;
+                case RANGE:
+                    double lower = sampleKeys[random.nextInt(sampleKeys.length)];
+                    // Only the leaf walk holds the lock; inserts don't wait behind the block reads
+                    List<PhysicalAddress> addresses;
+                    treeLock.readLock().lock();
+                    try {
+                        addresses = tree.collect_addresses(lower, lower + rangeWidth);
+                    } finally {
+                        treeLock.readLock().unlock();
+                    }
+                    BPlustree.fetch_records(addresses, disk);
+                    break;
+                case AGGREGATE:
+                    seasonReport.runSingleThreaded(disk, dataBlockCount);
+                    break;
+                case INSERT:
+                    stats.blocksWritten[op.ordinal()] += insert(random.nextInt(sampleKeys.length), disk);
+                    break;
+            }
+        } catch (IOException e) {
+            stats.errors++;
+        }
+        stats.blocksRead[op.ordinal()] += disk.getBlocksRead() - readBefore;
+    }
+
+    private Record point(int recordID, Disk disk) throws IOException {
+        int[] location = primaryIndex.getLocation(recordID);
+        return location == null ? null : disk.readBlock(location[0]).getRecord(location[1]);
+    }
+
+    // Insert a copy of a sampled row under a new record ID; returns the blocks written
+    // The copy keeps the sampled row's key, which the tree already holds (see add_to_posting).
+    private long insert(int sample, Disk disk) throws IOException {
+        Record source = disk.readBlock(sampleBlocks[sample]).getRecord(sampleIndexes[sample]);
+        if (source == null) {
+            return 0; // Sampled row was deleted
+        }
+
+        treeLock.writeLock().lock();
+        try {
+            long writtenBefore = writerDisk.getBlocksWritten();
+            ByteBuffer bytes = ByteBuffer.wrap(source.toBytes()).order(ByteOrder.LITTLE_ENDIAN);
+            bytes.putInt(0, nextRecordID);
+            Record record = Record.fromBytes(bytes.array());
+
+            // Copy-on-write like LoadFileOnDisk: new rows only go into blocks past the loaded ones
+            if (tailBlock == null || tailBlock.isFull()) {
+                tailBlock = new Block(dataBlockCount);
+            }
+            PhysicalAddress address = tailBlock.addRecord(record);
+            writerDisk.writeBlock(tailBlock);
+            dataBlockCount = Math.max(dataBlockCount, tailBlock.getBlockID() + 1);
+            primaryIndex.addMapping(nextRecordID++, address);
+            tree.add_to_posting(sampleKeys[sample], new PhysicalAddress(address.getBlockNumber(), address.getIndex()));
+            return writerDisk.getBlocksWritten() - writtenBefore;
+        } finally {
+            treeLock.writeLock().unlock();
+        }
+    }
+
+    private static void report(WorkerStats total, double elapsedSeconds) {
+        System.out.println(String.format("%-10s %9s %10s %10s %10s %10s %10s %12s %12s", "operation", "ops", "ops/s",
+                "p50 us", "p99 us", "p99.9 us", "max us", "reads/op", "writes/op"));
+        long allOps = 0;
+        for (Operation op : Operation.values()) {
+            LatencyHistogram histogram = total.latencies[op.ordinal()];
+            long count = histogram.getTotalCount();
+            allOps += count;
+            if (count == 0) {
+                continue;
+            }
+            System.out.println(String.format("%-10s %9d %10.1f %10.1f %10.1f %10.1f %10.1f %12.2f %12.2f",
+                    op, count, count / elapsedSeconds,
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMax() / 1000.0,
+                    (double) total.blocksRead[op.ordinal()] / count, (double) total.blocksWritten[op.ordinal()] / count));
+        }
+        System.out.println(String.format("Total: %d ops in %.2f s (%.1f ops/s), %d errors",
+                allOps, elapsedSeconds, allOps / elapsedSeconds, total.errors));
+        if (total.missed > 0) {
+            System.out.println("Target rate not sustained: " + total.missed + " scheduled operations were never issued");
+        }
+    }
+
+    // Closes a worker's own Disk when the worker finishes
+    private static class DiskHandle implements AutoCloseable {
+        final Disk disk;
+
+        DiskHandle(Disk disk) {
+            this.disk = disk;
+        }
+
+        @Override
+        public void close() throws IOException {
+            disk.close();
+        }
+    }
+}